@@ -2,13 +2,17 @@ package rang.games.contentsBagAPI;
 
 import org.bukkit.plugin.java.JavaPlugin;
 import rang.games.contentsBagAPI.api.ContentAPI;
+import rang.games.contentsBagAPI.command.BagArchiveCommand;
+import rang.games.contentsBagAPI.command.TransactionHistoryCommand;
 import rang.games.contentsBagAPI.config.ConfigManager;
 import rang.games.contentsBagAPI.event.EventListener;
 import rang.games.contentsBagAPI.log.TransactionLogger;
 import rang.games.contentsBagAPI.storage.Storage;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 
 public class ContentPlugin extends JavaPlugin {
@@ -19,7 +23,7 @@ public class ContentPlugin extends JavaPlugin {
     public void onEnable() {
         saveDefaultConfig();
         this.configManager = new ConfigManager(this);
-        this.logger = new TransactionLogger(this);
+        this.logger = new TransactionLogger(this, configManager);
         this.storage = new Storage(configManager, logger);
 
         ContentAPI.init(storage);
@@ -29,6 +33,16 @@ public class ContentPlugin extends JavaPlugin {
                 this
         );
 
+        getCommand("cbhistory").setExecutor(new TransactionHistoryCommand(this));
+        getCommand("cbarchive").setExecutor(new BagArchiveCommand(this, storage));
+
+        long sweepTicks = configManager.getEvictionSweepSeconds() * 20L;
+        getServer().getScheduler().runTaskTimer(this, () -> {
+            Set<UUID> online = new HashSet<>();
+            getServer().getOnlinePlayers().forEach(player -> online.add(player.getUniqueId()));
+            storage.evictIdlePlayers(online);
+        }, sweepTicks, sweepTicks);
+
         storage.getItemStorage().loadItems()
                 .thenAccept(success -> {
                     if (success) {
@@ -39,20 +53,13 @@ public class ContentPlugin extends JavaPlugin {
                             String playerName = player.getName();
 
                             storage.setPlayerLoading(playerUUID, true);
-                            storage.loadPlayerData(playerUUID)
-                                    .thenCompose(loaded -> {
-                                        if (loaded) {
+                            storage.loadAndActivatePlayerData(playerUUID)
+                                    .thenAccept(result -> {
+                                        storage.setPlayerLoading(playerUUID, false);
+                                        if (result) {
                                             logger.info("Successfully loaded data for online player {}", playerName);
-                                            return ContentAPI.getInstance().setContentBagModifiable(playerUUID, true);
                                         } else {
                                             logger.error("Failed to load data for online player {}", playerName);
-                                            return CompletableFuture.completedFuture(false);
-                                        }
-                                    })
-                                    .thenAccept(result -> {
-                                        storage.setPlayerLoading(playerUUID, false);
-                                        if (!result) {
-                                            logger.error("Failed to setup player data for online player {}", playerName);
                                         }
                                     })
                                     .exceptionally(e -> {
@@ -70,13 +77,16 @@ public class ContentPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
         if (storage != null) {
-            storage.saveAllPlayerData()
-                    .thenRun(() -> logger.info("All player data saved"))
-                    .exceptionally(e -> {
-                        logger.error("Failed to save all player data: {}", e.getMessage());
-                        return null;
-                    });
+            List<UUID> unflushed = storage.flushAllForShutdown(configManager.getShutdownFlushTimeoutMs());
+            if (unflushed.isEmpty()) {
+                logger.info("All player data saved");
+            } else {
+                logger.error("Failed to save data for {} players on shutdown", unflushed.size());
+            }
             storage.shutdown();
         }
+        if (logger != null) {
+            logger.close();
+        }
     }
 }
\ No newline at end of file
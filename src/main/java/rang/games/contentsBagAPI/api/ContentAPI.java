@@ -1,12 +1,20 @@
 package rang.games.contentsBagAPI.api;
 
+import org.bukkit.inventory.ItemStack;
 import rang.games.contentsBagAPI.log.TransactionLogger;
+import rang.games.contentsBagAPI.log.TransactionRecord;
+import rang.games.contentsBagAPI.model.BagSnapshot;
 import rang.games.contentsBagAPI.model.ContentItem;
+import rang.games.contentsBagAPI.model.ItemAggregate;
+import rang.games.contentsBagAPI.model.ItemChangeEvent;
+import rang.games.contentsBagAPI.model.ItemPage;
+import rang.games.contentsBagAPI.model.LeaderboardEntry;
 import rang.games.contentsBagAPI.model.PlayerData;
 import rang.games.contentsBagAPI.storage.Storage;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.stream.Collectors;
 
 public class ContentAPI {
@@ -75,7 +83,7 @@ public class ContentAPI {
                         logger.error("Failed to save dirty state for player {}", playerUUID);
                         return CompletableFuture.completedFuture(false);
                     }
-                    return setContentBagModifiable(playerUUID, false);
+                    return storage.lockForTransfer(playerUUID);
                 })
                 .thenCompose(disabled -> {
                     if (!disabled) {
@@ -160,13 +168,11 @@ public class ContentAPI {
             return CompletableFuture.completedFuture(false);
         }
 
-        PlayerData playerData = storage.getPlayerData(playerUUID);
-        if (playerData == null) {
+        if (storage.getPlayerData(playerUUID) == null || !storage.getItemStorage().hasItem(contentItemUUID)) {
             return CompletableFuture.completedFuture(false);
         }
 
-        int currentCount = playerData.getItemCount(contentItemUUID);
-        return setItemCount(playerUUID, contentItemUUID, currentCount + amount,
+        return storage.updateItemCount(playerUUID, contentItemUUID, current -> current + amount,
                 String.format("%s (Add: %d)", reason, amount));
     }
     public Storage getStorage() {
@@ -182,16 +188,12 @@ public class ContentAPI {
         }
 
         PlayerData playerData = storage.getPlayerData(playerUUID);
-        if (playerData == null) {
-            return CompletableFuture.completedFuture(false);
-        }
-
-        int currentCount = playerData.getItemCount(contentItemUUID);
-        if (currentCount < amount) {
+        if (playerData == null || playerData.getItemCount(contentItemUUID) < amount) {
             return CompletableFuture.completedFuture(false);
         }
 
-        return setItemCount(playerUUID, contentItemUUID, currentCount - amount,
+        return storage.updateItemCount(playerUUID, contentItemUUID,
+                current -> current < amount ? -1 : current - amount,
                 String.format("%s (Remove: %d)", reason, amount));
     }
 
@@ -199,33 +201,74 @@ public class ContentAPI {
      * 특정 타입의 모든 콘텐츠 아이템을 조회합니다.
      */
     public Map<UUID, ContentItem> getItemsByType(int type) {
-        Map<UUID, ContentItem> originalMap = storage.getItemStorage().getItemsByType(type);
-
-        return originalMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.comparing(ContentItem::getSlot)))
+        return storage.getItemStorage().getItemsByTypeSorted(type).stream()
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
+                        ContentItem::getUUID,
+                        item -> item,
                         (e1, e2) -> e1,
                         LinkedHashMap::new
                 ));
     }
 
     public Map<UUID, ContentItem> getItemsByType(int type, int offset, int limit) {
-        Map<UUID, ContentItem> originalMap = storage.getItemStorage().getItemsByType(type);
-
-        return originalMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.comparing(ContentItem::getSlot)))
+        return storage.getItemStorage().getItemsByTypeSorted(type).stream()
                 .skip(offset)
                 .limit(limit)
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
+                        ContentItem::getUUID,
+                        item -> item,
                         (e1, e2) -> e1,
                         LinkedHashMap::new
                 ));
     }
 
+    /**
+     * 가격대(최소 단위, 양 끝 포함)에 속하는 콘텐츠 아이템을 가격 순으로 한 페이지 조회합니다.
+     * 카탈로그를 불러올 때 만든 가격 인덱스를 사용하므로 전체 카탈로그를 훑지 않습니다.
+     *
+     * @param cursor 이전 페이지의 {@link ItemPage#getNextCursor()}, 첫 페이지는 null
+     * @throws IllegalArgumentException 커서 형식이 잘못되었으면
+     */
+    public ItemPage getItemsByPriceRange(long minPriceMinor, long maxPriceMinor, String cursor, int limit) {
+        return storage.getItemStorage().getItemsByPrice(minPriceMinor, maxPriceMinor, cursor, limit);
+    }
+
+    /**
+     * 타입 안에서 슬롯 범위(양 끝 포함)에 속하는 콘텐츠 아이템을 슬롯 순으로 한 페이지 조회합니다.
+     *
+     * @param cursor 이전 페이지의 {@link ItemPage#getNextCursor()}, 첫 페이지는 null
+     * @throws IllegalArgumentException 커서 형식이 잘못되었으면
+     */
+    public ItemPage getItemsBySlotRange(int type, int fromSlot, int toSlot, String cursor, int limit) {
+        return storage.getItemStorage().getItemsBySlot(type, fromSlot, toSlot, cursor, limit);
+    }
+
+    /**
+     * 보유 수량을 채운 메뉴 표시 아이템을 만듭니다.
+     * 카탈로그를 불러올 때 준비한 템플릿을 복사하므로 아이템 메타를 다시 해석하지 않습니다.
+     *
+     * @return 표시 아이템 (카탈로그에 없는 아이템이면 null)
+     */
+    public ItemStack renderDisplayItem(UUID contentItemUUID, int count) {
+        return storage.getItemStorage().renderDisplayItem(contentItemUUID, count);
+    }
+
+    /**
+     * 플레이어의 보유 수량으로 메뉴 한 페이지의 표시 아이템을 만듭니다.
+     * 수량은 가방 스냅샷 하나에서 읽으므로 페이지 안의 수량이 서로 어긋나지 않습니다.
+     *
+     * @return items와 같은 순서의 표시 아이템 (플레이어 데이터가 없으면 수량 0으로 표시)
+     */
+    public List<ItemStack> renderDisplayItems(UUID playerUUID, List<ContentItem> items) {
+        BagSnapshot snapshot = getBagSnapshot(playerUUID);
+        List<ItemStack> rendered = new ArrayList<>(items.size());
+        for (ContentItem item : items) {
+            int count = snapshot != null ? snapshot.getCount(item.getUUID()) : 0;
+            rendered.add(storage.getItemStorage().renderDisplayItem(item.getUUID(), count));
+        }
+        return rendered;
+    }
+
     /**
      * 특정 콘텐츠 아이템을 조회합니다.
      */
@@ -241,7 +284,188 @@ public class ContentAPI {
         if (playerData == null || storage.isPlayerLoading(playerUUID)) {
             return Collections.emptyMap();
         }
-        return Collections.unmodifiableMap(playerData.getItemCounts());
+        return playerData.getItemCounts();
+    }
+
+    /**
+     * 플레이어 가방의 불변 스냅샷을 조회합니다.
+     * 가방이 바뀌지 않았다면 같은 인스턴스가 반환되므로 반복 조회에 할당이 없습니다.
+     *
+     * @return 스냅샷 (플레이어 데이터가 없거나 로딩 중이면 null)
+     */
+    public BagSnapshot getBagSnapshot(UUID playerUUID) {
+        PlayerData playerData = storage.getPlayerData(playerUUID);
+        if (playerData == null || storage.isPlayerLoading(playerUUID)) {
+            return null;
+        }
+        return playerData.getSnapshot();
+    }
+
+    /**
+     * 접속 여부와 관계없이 플레이어 가방의 읽기 전용 스냅샷을 조회합니다.
+     * 이 서버에 로드된 플레이어는 현재 가방을, 그 외에는 캐시된 가방(없으면 DB 조회)을 반환합니다.
+     * 다른 서버에서 변경된 내용은 offline-cache.ttl-seconds만큼 늦게 보일 수 있습니다.
+     *
+     * @return 스냅샷 (조회 실패 시 null)
+     */
+    public CompletableFuture<BagSnapshot> getBagSnapshotAsync(UUID playerUUID) {
+        return storage.getBagSnapshot(playerUUID)
+                .exceptionally(e -> {
+                    logger.error("Failed to read bag for player {}: {}", playerUUID, e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * 접속 여부와 관계없이 플레이어의 특정 아이템 수량을 조회합니다.
+     *
+     * @return 아이템 수량 (조회 실패 시 -1)
+     */
+    public CompletableFuture<Integer> getItemCountAsync(UUID playerUUID, UUID contentItemUUID) {
+        return getBagSnapshotAsync(playerUUID)
+                .thenApply(snapshot -> snapshot != null ? snapshot.getCount(contentItemUUID) : -1);
+    }
+
+    /**
+     * 접속 여부와 관계없이 플레이어가 보유한 모든 아이템의 수량을 조회합니다.
+     *
+     * @return 수정할 수 없는 수량 맵 (조회 실패 시 null)
+     */
+    public CompletableFuture<Map<UUID, Integer>> getAllItemCountsAsync(UUID playerUUID) {
+        return getBagSnapshotAsync(playerUUID)
+                .thenApply(snapshot -> snapshot != null ? snapshot.getCounts() : null);
+    }
+
+    /**
+     * 트랜잭션 로그에서 플레이어 또는 아이템의 변경 기록을 조회합니다.
+     * 로그 세그먼트별 인덱스로 해당 UUID가 등장한 구간만 읽습니다.
+     *
+     * @param subject 플레이어 또는 아이템 UUID
+     * @param from 시작 시각 (epoch millis, 포함)
+     * @param to 끝 시각 (epoch millis, 포함)
+     * @return 범위 안의 최근 기록 최대 {@link TransactionLogger#DEFAULT_HISTORY_LIMIT}개, 시간 순 (조회 실패 시 빈 목록)
+     */
+    public CompletableFuture<List<TransactionRecord>> getTransactionHistory(UUID subject, long from, long to) {
+        return getTransactionHistory(subject, from, to, TransactionLogger.DEFAULT_HISTORY_LIMIT);
+    }
+
+    /**
+     * 트랜잭션 로그에서 범위 안의 가장 최근 기록을 최대 limit개 조회합니다.
+     * 최신 세그먼트부터 읽어 limit개가 모이면 더 이전 기록은 읽지 않습니다.
+     *
+     * @return 시간 순 기록 (조회 실패 시 빈 목록)
+     */
+    public CompletableFuture<List<TransactionRecord>> getTransactionHistory(UUID subject, long from, long to, int limit) {
+        return storage.queryTransactionHistory(subject, from, to, limit)
+                .exceptionally(e -> {
+                    logger.error("Failed to query transaction history for {}: {}", subject, e.getMessage());
+                    return List.of();
+                });
+    }
+
+    /**
+     * 플레이어 가방의 현재 변경 번호를 조회합니다. 이전 스냅샷의 번호와 다르면 가방이 바뀐 것입니다.
+     *
+     * @return 변경 번호 (플레이어 데이터가 없거나 로딩 중이면 -1)
+     */
+    public long getBagVersion(UUID playerUUID) {
+        PlayerData playerData = storage.getPlayerData(playerUUID);
+        if (playerData == null || storage.isPlayerLoading(playerUUID)) {
+            return -1;
+        }
+        return playerData.getVersion();
+    }
+
+    /**
+     * 플레이어 가방의 총 가치를 최소 단위(0.01) 정수로 조회합니다.
+     * 수량 변경 시 갱신되는 누적값이라 아이템 수와 관계없이 바로 반환됩니다.
+     *
+     * @return 총 가치 (플레이어 데이터가 없거나 로딩 중이면 -1)
+     */
+    public long getBagValue(UUID playerUUID) {
+        PlayerData playerData = storage.getPlayerData(playerUUID);
+        if (playerData == null || storage.isPlayerLoading(playerUUID)) {
+            return -1;
+        }
+        return playerData.getTotalValue();
+    }
+
+    /**
+     * 아이템의 전체 유통량(모든 플레이어 보유 수량 합)을 조회합니다.
+     * 저장 시점 델타로 유지되는 집계이므로 DB를 조회하지 않으며, 다른 서버의 저장분은 주기적으로 반영됩니다.
+     */
+    public long getItemCirculation(UUID contentItemUUID) {
+        return storage.getItemAggregates().get(contentItemUUID).getTotal();
+    }
+
+    /**
+     * 아이템을 1개 이상 보유한 플레이어 수를 조회합니다.
+     */
+    public long getItemHolderCount(UUID contentItemUUID) {
+        return storage.getItemAggregates().get(contentItemUUID).getHolders();
+    }
+
+    /**
+     * 아이템의 유통량과 보유자 수를 함께 조회합니다.
+     */
+    public ItemAggregate getItemAggregate(UUID contentItemUUID) {
+        return storage.getItemAggregates().get(contentItemUUID);
+    }
+
+    /**
+     * 집계된 모든 아이템의 유통량과 보유자 수를 조회합니다.
+     */
+    public Map<UUID, ItemAggregate> getAllItemAggregates() {
+        return storage.getItemAggregates().getAll();
+    }
+
+    /**
+     * 아이템 보유 수량 순위의 한 페이지를 조회합니다. 메모리에서 바로 반환하며 DB를 조회하지 않습니다.
+     * 순위는 leaderboards.items에 설정된 아이템만 유지됩니다.
+     *
+     * @param page 0부터 시작하는 페이지
+     * @return 순위 목록 (설정되지 않은 아이템이거나 범위를 벗어나면 빈 목록)
+     */
+    public List<LeaderboardEntry> getLeaderboard(UUID contentItemUUID, int page, int pageSize) {
+        return storage.getLeaderboards().getPage(contentItemUUID, page, pageSize);
+    }
+
+    /**
+     * 플레이어의 아이템 보유 순위를 조회합니다.
+     *
+     * @return 순위 (1부터 시작, 순위 밖이거나 설정되지 않은 아이템이면 -1)
+     */
+    public int getLeaderboardRank(UUID contentItemUUID, UUID playerUUID) {
+        LeaderboardEntry entry = storage.getLeaderboards().getEntry(contentItemUUID, playerUUID);
+        return entry != null ? entry.getRank() : -1;
+    }
+
+    public boolean hasLeaderboard(UUID contentItemUUID) {
+        return storage.getLeaderboards().isTracked(contentItemUUID);
+    }
+
+    /**
+     * 모든 플레이어의 아이템 수량 변경을 구독합니다.
+     * 구독자는 request(n)로 요청한 만큼만 받으며, 밀린 변경은 (플레이어, 아이템) 단위로 합쳐집니다.
+     * 버퍼가 넘쳐 변경이 버려지면 다음 이벤트의 getDroppedBefore()가 0보다 큽니다.
+     * 이벤트는 비동기 스레드에서 전달됩니다.
+     */
+    public void subscribeItemChanges(Flow.Subscriber<? super ItemChangeEvent> subscriber) {
+        storage.getChangePublisher().subscribe(subscriber);
+    }
+
+    /**
+     * 특정 플레이어의 아이템 수량 변경을 구독합니다.
+     */
+    public void subscribePlayerItemChanges(UUID playerUUID, Flow.Subscriber<? super ItemChangeEvent> subscriber) {
+        storage.getChangePublisher().subscribe(subscriber, event -> event.getPlayerUUID().equals(playerUUID));
+    }
+
+    /**
+     * 특정 콘텐츠 아이템의 수량 변경을 모든 플레이어에 대해 구독합니다.
+     */
+    public void subscribeContentItemChanges(UUID contentItemUUID, Flow.Subscriber<? super ItemChangeEvent> subscriber) {
+        storage.getChangePublisher().subscribe(subscriber, event -> event.getItemUUID().equals(contentItemUUID));
     }
 
     /**
@@ -0,0 +1,47 @@
+package rang.games.contentsBagAPI.command;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+import rang.games.contentsBagAPI.storage.BagArchive;
+import rang.games.contentsBagAPI.storage.Storage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /cbarchive &lt;export|import&gt; &lt;파일 이름&gt;
+ * 모든 플레이어 가방을 archives 폴더의 파일로 내보내거나 가져옵니다. 중단된 작업은 같은 명령으로 이어집니다.
+ */
+public class BagArchiveCommand implements CommandExecutor {
+    private final Plugin plugin;
+    private final Storage storage;
+
+    public BagArchiveCommand(Plugin plugin, Storage storage) {
+        this.plugin = plugin;
+        this.storage = storage;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length != 2 || !(args[0].equalsIgnoreCase("export") || args[0].equalsIgnoreCase("import"))) {
+            sender.sendMessage("사용법: /" + label + " <export|import> <파일 이름>");
+            return true;
+        }
+
+        boolean export = args[0].equalsIgnoreCase("export");
+        String name = args[1];
+        sender.sendMessage(export ? "가방을 내보내는 중입니다: " + name : "가방을 가져오는 중입니다: " + name);
+        CompletableFuture<BagArchive.Result> task = export ? storage.exportBags(name) : storage.importBags(name);
+        task.whenComplete((result, e) -> plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (e != null) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                sender.sendMessage((export ? "내보내기" : "가져오기") + " 실패: " + cause.getMessage());
+                return;
+            }
+            sender.sendMessage(String.format("%s 완료: 플레이어 %d명, 아이템 %d행",
+                    export ? "내보내기" : "가져오기", result.getPlayers(), result.getRows()));
+        }));
+        return true;
+    }
+}
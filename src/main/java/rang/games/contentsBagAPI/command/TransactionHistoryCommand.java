@@ -0,0 +1,80 @@
+package rang.games.contentsBagAPI.command;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+import rang.games.contentsBagAPI.api.ContentAPI;
+import rang.games.contentsBagAPI.log.TransactionRecord;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * /cbhistory &lt;플레이어|아이템 UUID&gt; [시간 | 시작ms 끝ms]
+ * 트랜잭션 로그에서 변경 기록을 찾아 최근 항목부터 보여줍니다.
+ */
+public class TransactionHistoryCommand implements CommandExecutor {
+    private static final int MAX_LINES = 50;
+    private static final long DEFAULT_HOURS = 24;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss.SSS");
+
+    private final Plugin plugin;
+
+    public TransactionHistoryCommand(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length != 1 && args.length != 2 && args.length != 3) {
+            sender.sendMessage("사용법: /" + label + " <플레이어|아이템 UUID> [시간 | 시작ms 끝ms]");
+            return true;
+        }
+
+        UUID subject;
+        long from;
+        long to;
+        try {
+            subject = UUID.fromString(args[0]);
+            if (args.length == 3) {
+                from = Long.parseLong(args[1]);
+                to = Long.parseLong(args[2]);
+            } else {
+                long hours = args.length == 2 ? Long.parseLong(args[1]) : DEFAULT_HOURS;
+                to = System.currentTimeMillis();
+                from = to - hours * 3_600_000L;
+            }
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage("잘못된 UUID 또는 시간입니다: " + e.getMessage());
+            return true;
+        }
+
+        sender.sendMessage("변경 기록을 조회하는 중입니다...");
+        // 한 건 더 조회해 생략된 기록이 있는지만 확인합니다
+        ContentAPI.getInstance().getTransactionHistory(subject, from, to, MAX_LINES + 1)
+                .thenAccept(records -> plugin.getServer().getScheduler().runTask(plugin,
+                        () -> send(sender, subject, records)));
+        return true;
+    }
+
+    private void send(CommandSender sender, UUID subject, List<TransactionRecord> records) {
+        int shown = Math.min(MAX_LINES, records.size());
+        sender.sendMessage(String.format("%s: 최근 %d건", subject, shown));
+        for (int i = records.size() - shown; i < records.size(); i++) {
+            TransactionRecord record = records.get(i);
+            String time = LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getTimestamp()), ZoneId.systemDefault())
+                    .format(TIME_FORMAT);
+            sender.sendMessage(String.format("[%s] %s %s %+d (%d → %d) %s",
+                    time, record.getPlayerUUID(), record.getItemUUID(), record.getDelta(),
+                    record.getOldCount(), record.getNewCount(), record.getReason()));
+        }
+        if (records.size() > shown) {
+            sender.sendMessage("... 이전 기록이 더 있습니다 (시간 범위를 좁혀 조회하세요)");
+        }
+    }
+}
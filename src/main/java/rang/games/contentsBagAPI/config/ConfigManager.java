@@ -1,19 +1,26 @@
 package rang.games.contentsBagAPI.config;
 
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.Plugin;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 public class ConfigManager {
-    private final JavaPlugin plugin;
+    private final Plugin plugin;
     private final String serverName;
     private final String lobbyServerName;
     private final Set<String> apiEnabledServers;
 
-    public ConfigManager(JavaPlugin plugin) {
+    public ConfigManager(Plugin plugin) {
         this.plugin = plugin;
         FileConfiguration config = plugin.getConfig();
 
@@ -24,6 +31,57 @@ public class ConfigManager {
         config.addDefault("database.name", "content_db");
         config.addDefault("database.user", "root");
         config.addDefault("database.password", "");
+        PoolSettings.addDefaults(config, "database.pool");
+        config.addDefault("database.replica.enabled", false);
+        config.addDefault("database.replica.host", "localhost");
+        config.addDefault("database.replica.port", 3306);
+        config.addDefault("database.replica.name", "content_db_replica");
+        config.addDefault("database.replica.user", "root");
+        config.addDefault("database.replica.password", "");
+        config.addDefault("database.replica.read-your-writes-ms", 10000L);
+        PoolSettings.addDefaults(config, "database.replica.pool");
+        config.addDefault("autosave.interval-seconds", 900);
+        config.addDefault("autosave.unjournaled-interval-seconds", 300);
+        config.addDefault("autosave.max-in-flight", 4);
+        config.addDefault("autosave.target-latency-ms", 250);
+        config.addDefault("shutdown.flush-timeout-seconds", 20);
+        config.addDefault("journal.enabled", true);
+        config.addDefault("journal.size-mb", 16);
+        config.addDefault("journal.force-on-write", false);
+        config.addDefault("durability.default", "WRITE_BEHIND");
+        config.addDefault("durability.group-commit-ms", 200);
+        config.addDefault("tracking.maintenance-enabled", true);
+        config.addDefault("tracking.maintenance-interval-minutes", 60);
+        config.addDefault("tracking.retention-days", 30);
+        config.addDefault("tracking.partition-days-ahead", 7);
+        config.addDefault("tracking.convert-legacy-table", false);
+        config.addDefault("economy.refresh-minutes", 5);
+        config.addDefault("economy.reconcile-hours", 6);
+        config.addDefault("economy.delta-flush-ms", 1000);
+        config.addDefault("leaderboards.items", new ArrayList<String>());
+        config.addDefault("leaderboards.size", 100);
+        config.addDefault("leaderboards.rebuild-minutes", 30);
+        config.addDefault("offline-cache.max-size", 10000);
+        config.addDefault("offline-cache.ttl-seconds", 60);
+        config.addDefault("eviction.sweep-seconds", 60);
+        config.addDefault("eviction.grace-seconds", 300);
+        config.addDefault("ledger.enabled", false);
+        config.addDefault("ledger.batch-size", 500);
+        config.addDefault("ledger.flush-interval-ms", 1000);
+        config.addDefault("transaction-log.segment-size-mb", 64);
+        config.addDefault("transaction-log.compress", true);
+        config.addDefault("transfer-recovery.enabled", true);
+        config.addDefault("transfer-recovery.lease-seconds", 300);
+        config.addDefault("transfer-recovery.sweep-seconds", 60);
+        config.addDefault("transfer-recovery.batch-size", 200);
+        config.addDefault("load-batch.window-ms", 5);
+        config.addDefault("load-batch.max-size", 200);
+        config.addDefault("display.price-line", "&7가격: &f{price}");
+        config.addDefault("display.count-line", "&7보유: &f{count}");
+        config.addDefault("archive.chunk-players", 1000);
+        config.addDefault("archive.fetch-size", 1000);
+        config.addDefault("archive.import-threads", 4);
+        config.addDefault("catalog.fetch-size", 500);
         config.options().copyDefaults(true);
         plugin.saveConfig();
 
@@ -33,6 +91,10 @@ public class ConfigManager {
 
     }
 
+    public File getDataFolder() {
+        return plugin.getDataFolder();
+    }
+
     public boolean isApiEnabledServer(String serverName) {
         return apiEnabledServers.contains(serverName);
     }
@@ -71,4 +133,254 @@ public class ConfigManager {
     public String getDatabasePassword() {
         return plugin.getConfig().getString("database.password");
     }
-}
\ No newline at end of file
+
+    public PoolSettings getDatabasePoolSettings() {
+        return PoolSettings.read(plugin.getConfig(), "database.pool");
+    }
+
+    public boolean isReplicaEnabled() {
+        return plugin.getConfig().getBoolean("database.replica.enabled");
+    }
+
+    public String getReplicaHost() {
+        return plugin.getConfig().getString("database.replica.host");
+    }
+
+    public int getReplicaPort() {
+        return plugin.getConfig().getInt("database.replica.port");
+    }
+
+    public String getReplicaName() {
+        return plugin.getConfig().getString("database.replica.name");
+    }
+
+    public String getReplicaUser() {
+        return plugin.getConfig().getString("database.replica.user");
+    }
+
+    public String getReplicaPassword() {
+        return plugin.getConfig().getString("database.replica.password");
+    }
+
+    public long getReplicaReadYourWritesMs() {
+        return plugin.getConfig().getLong("database.replica.read-your-writes-ms");
+    }
+
+    public PoolSettings getReplicaPoolSettings() {
+        return PoolSettings.read(plugin.getConfig(), "database.replica.pool");
+    }
+
+    public long getAutoSaveIntervalMs() {
+        return Math.max(10, plugin.getConfig().getInt("autosave.interval-seconds")) * 1000L;
+    }
+
+    public long getUnjournaledAutoSaveIntervalMs() {
+        return Math.max(10, plugin.getConfig().getInt("autosave.unjournaled-interval-seconds")) * 1000L;
+    }
+
+    public int getAutoSaveMaxInFlight() {
+        return Math.max(1, plugin.getConfig().getInt("autosave.max-in-flight"));
+    }
+
+    public long getAutoSaveTargetLatencyMs() {
+        return Math.max(1, plugin.getConfig().getInt("autosave.target-latency-ms"));
+    }
+
+    public long getShutdownFlushTimeoutMs() {
+        return Math.max(1, plugin.getConfig().getInt("shutdown.flush-timeout-seconds")) * 1000L;
+    }
+
+    public boolean isJournalEnabled() {
+        return plugin.getConfig().getBoolean("journal.enabled");
+    }
+
+    public long getJournalSizeBytes() {
+        return Math.max(1, plugin.getConfig().getInt("journal.size-mb")) * 1024L * 1024L;
+    }
+
+    public boolean isJournalForceOnWrite() {
+        return plugin.getConfig().getBoolean("journal.force-on-write");
+    }
+
+    public String getDefaultDurability() {
+        return plugin.getConfig().getString("durability.default");
+    }
+
+    public long getGroupCommitMs() {
+        return Math.max(1, plugin.getConfig().getInt("durability.group-commit-ms"));
+    }
+
+    /**
+     * 아이템 타입별 내구성 정책 이름입니다.
+     */
+    public Map<Integer, String> getTypeDurabilities() {
+        Map<Integer, String> policies = new HashMap<>();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("durability.types");
+        if (section == null) {
+            return policies;
+        }
+        for (String key : section.getKeys(false)) {
+            try {
+                policies.put(Integer.parseInt(key), section.getString(key));
+            } catch (NumberFormatException e) {
+                plugin.getLogger().warning("Invalid item type in durability.types: " + key);
+            }
+        }
+        return policies;
+    }
+
+    /**
+     * 아이템별 내구성 정책 이름입니다. 타입 설정보다 우선합니다.
+     */
+    public Map<UUID, String> getItemDurabilities() {
+        Map<UUID, String> policies = new HashMap<>();
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("durability.items");
+        if (section == null) {
+            return policies;
+        }
+        for (String key : section.getKeys(false)) {
+            try {
+                policies.put(UUID.fromString(key), section.getString(key));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid item UUID in durability.items: " + key);
+            }
+        }
+        return policies;
+    }
+
+    public boolean isTrackingMaintenanceEnabled() {
+        return plugin.getConfig().getBoolean("tracking.maintenance-enabled");
+    }
+
+    public long getTrackingMaintenanceIntervalMinutes() {
+        return Math.max(1, plugin.getConfig().getInt("tracking.maintenance-interval-minutes"));
+    }
+
+    public int getTrackingRetentionDays() {
+        return Math.max(1, plugin.getConfig().getInt("tracking.retention-days"));
+    }
+
+    public int getTrackingPartitionDaysAhead() {
+        return Math.max(1, plugin.getConfig().getInt("tracking.partition-days-ahead"));
+    }
+
+    public boolean isTrackingConvertLegacyTable() {
+        return plugin.getConfig().getBoolean("tracking.convert-legacy-table");
+    }
+
+    public long getEconomyRefreshMinutes() {
+        return Math.max(1, plugin.getConfig().getInt("economy.refresh-minutes"));
+    }
+
+    public long getEconomyReconcileHours() {
+        return Math.max(1, plugin.getConfig().getInt("economy.reconcile-hours"));
+    }
+
+    public long getEconomyDeltaFlushMs() {
+        return Math.max(100, plugin.getConfig().getInt("economy.delta-flush-ms"));
+    }
+
+    public List<UUID> getLeaderboardItems() {
+        List<UUID> items = new ArrayList<>();
+        for (String value : plugin.getConfig().getStringList("leaderboards.items")) {
+            try {
+                items.add(UUID.fromString(value));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid item UUID in leaderboards.items: " + value);
+            }
+        }
+        return items;
+    }
+
+    public int getLeaderboardSize() {
+        return Math.max(1, plugin.getConfig().getInt("leaderboards.size"));
+    }
+
+    public long getLeaderboardRebuildMinutes() {
+        return Math.max(1, plugin.getConfig().getInt("leaderboards.rebuild-minutes"));
+    }
+
+    public int getOfflineCacheMaxSize() {
+        return Math.max(1, plugin.getConfig().getInt("offline-cache.max-size"));
+    }
+
+    public long getOfflineCacheTtlMs() {
+        return Math.max(1, plugin.getConfig().getInt("offline-cache.ttl-seconds")) * 1000L;
+    }
+
+    public long getEvictionSweepSeconds() {
+        return Math.max(1, plugin.getConfig().getInt("eviction.sweep-seconds"));
+    }
+
+    public long getEvictionGraceMs() {
+        return Math.max(0, plugin.getConfig().getInt("eviction.grace-seconds")) * 1000L;
+    }
+
+    public boolean isLedgerEnabled() {
+        return plugin.getConfig().getBoolean("ledger.enabled");
+    }
+
+    public int getLedgerBatchSize() {
+        return Math.max(1, plugin.getConfig().getInt("ledger.batch-size"));
+    }
+
+    public long getLedgerFlushIntervalMs() {
+        return Math.max(10, plugin.getConfig().getInt("ledger.flush-interval-ms"));
+    }
+
+    public long getTransactionLogSegmentBytes() {
+        return Math.max(1, plugin.getConfig().getInt("transaction-log.segment-size-mb")) * 1024L * 1024L;
+    }
+
+    public boolean isTransactionLogCompressed() {
+        return plugin.getConfig().getBoolean("transaction-log.compress");
+    }
+
+    public boolean isTransferRecoveryEnabled() {
+        return plugin.getConfig().getBoolean("transfer-recovery.enabled");
+    }
+
+    public long getTransferRecoveryLeaseMs() {
+        return Math.max(30, plugin.getConfig().getInt("transfer-recovery.lease-seconds")) * 1000L;
+    }
+
+    public long getTransferRecoverySweepSeconds() {
+        return Math.max(5, plugin.getConfig().getInt("transfer-recovery.sweep-seconds"));
+    }
+
+    public int getTransferRecoveryBatchSize() {
+        return Math.max(1, plugin.getConfig().getInt("transfer-recovery.batch-size"));
+    }
+
+    public long getLoadBatchWindowMs() {
+        return Math.max(0, plugin.getConfig().getInt("load-batch.window-ms"));
+    }
+
+    public int getLoadBatchMaxSize() {
+        return Math.max(1, plugin.getConfig().getInt("load-batch.max-size"));
+    }
+
+    public String getDisplayPriceLine() {
+        return plugin.getConfig().getString("display.price-line", "");
+    }
+
+    public String getDisplayCountLine() {
+        return plugin.getConfig().getString("display.count-line", "");
+    }
+
+    public int getArchiveChunkPlayers() {
+        return Math.max(1, plugin.getConfig().getInt("archive.chunk-players"));
+    }
+
+    public int getArchiveFetchSize() {
+        return Math.max(1, plugin.getConfig().getInt("archive.fetch-size"));
+    }
+
+    public int getArchiveImportThreads() {
+        return Math.max(1, plugin.getConfig().getInt("archive.import-threads"));
+    }
+
+    public int getCatalogFetchSize() {
+        return Math.max(1, plugin.getConfig().getInt("catalog.fetch-size"));
+    }
+}
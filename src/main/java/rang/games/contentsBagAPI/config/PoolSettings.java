@@ -0,0 +1,61 @@
+package rang.games.contentsBagAPI.config;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * 커넥션 풀 하나의 크기 및 타임아웃 설정입니다.
+ */
+public class PoolSettings {
+    private final int maximumPoolSize;
+    private final int minimumIdle;
+    private final long connectionTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+
+    public PoolSettings(int maximumPoolSize, int minimumIdle, long connectionTimeoutMs,
+                        long idleTimeoutMs, long maxLifetimeMs) {
+        this.maximumPoolSize = Math.max(1, maximumPoolSize);
+        this.minimumIdle = Math.max(0, Math.min(minimumIdle, this.maximumPoolSize));
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+    }
+
+    static void addDefaults(FileConfiguration config, String path) {
+        config.addDefault(path + ".maximum-pool-size", 10);
+        config.addDefault(path + ".minimum-idle", 5);
+        config.addDefault(path + ".connection-timeout-ms", 30000L);
+        config.addDefault(path + ".idle-timeout-ms", 600000L);
+        config.addDefault(path + ".max-lifetime-ms", 1800000L);
+    }
+
+    static PoolSettings read(FileConfiguration config, String path) {
+        return new PoolSettings(
+                config.getInt(path + ".maximum-pool-size"),
+                config.getInt(path + ".minimum-idle"),
+                config.getLong(path + ".connection-timeout-ms"),
+                config.getLong(path + ".idle-timeout-ms"),
+                config.getLong(path + ".max-lifetime-ms")
+        );
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public int getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public long getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public long getMaxLifetimeMs() {
+        return maxLifetimeMs;
+    }
+}
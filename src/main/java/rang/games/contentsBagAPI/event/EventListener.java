@@ -9,14 +9,12 @@ import org.bukkit.event.player.PlayerMoveEvent;
 import rang.games.allPlayersUtil.event.NetworkJoinEvent;
 import rang.games.allPlayersUtil.event.NetworkQuitEvent;
 import rang.games.allPlayersUtil.event.ServerSwitchEvent;
-import rang.games.contentsBagAPI.api.ContentAPI;
 import rang.games.contentsBagAPI.config.ConfigManager;
 import rang.games.contentsBagAPI.log.TransactionLogger;
 import rang.games.contentsBagAPI.storage.Storage;
 
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class EventListener implements Listener {
@@ -38,20 +36,13 @@ public class EventListener implements Listener {
 
         storage.setPlayerLoading(playerUUID, true);
 
-        storage.loadPlayerData(playerUUID)
-                .thenCompose(success -> {
-                    if (success) {
+        storage.loadAndActivatePlayerData(playerUUID)
+                .thenAccept(result -> {
+                    storage.setPlayerLoading(playerUUID, false);
+                    if (result) {
                         logger.info("Successfully loaded data for player {}", playerName);
-                        return ContentAPI.getInstance().setContentBagModifiable(playerUUID, true);
                     } else {
                         logger.error("Failed to load data for player {}", playerName);
-                        return CompletableFuture.completedFuture(false);
-                    }
-                })
-                .thenAccept(result -> {
-                    storage.setPlayerLoading(playerUUID, false);
-                    if (!result) {
-                        logger.error("Failed to setup player data for {}", playerName);
                     }
                 })
                 .exceptionally(e -> {
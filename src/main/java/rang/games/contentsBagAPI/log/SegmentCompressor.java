@@ -0,0 +1,101 @@
+package rang.games.contentsBagAPI.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * 닫힌 세그먼트(.bin)를 블록 단위로 압축한 .binz 파일과 그 인덱스(.zidx)로 바꿉니다.
+ *
+ * 블록마다 따로 deflate하므로 압축 후에도 인덱스가 가리키는 블록만 풀어서 조회할 수 있습니다.
+ * 결과는 임시 파일에 쓴 뒤 이름을 바꾸며, 완료된 다음에만 원본을 지웁니다.
+ */
+final class SegmentCompressor {
+    private SegmentCompressor() {
+    }
+
+    static File compressedFileFor(File segment) {
+        String name = segment.getName();
+        return new File(segment.getParentFile(),
+                name.substring(0, name.length() - TransactionSegment.SUFFIX.length()) + TransactionSegment.COMPRESSED_SUFFIX);
+    }
+
+    static File compress(File segment) throws IOException {
+        File target = compressedFileFor(segment);
+        File index = TransactionLogIndex.indexFileFor(segment);
+        File targetIndex = TransactionLogIndex.indexFileFor(target);
+        File tmpTarget = new File(target.getPath() + ".tmp");
+        File tmpIndex = new File(targetIndex.getPath() + ".tmp");
+
+        List<TransactionLogIndex.Block> blocks = TransactionLogIndex.read(index);
+        List<TransactionLogIndex.Block> compressed = new ArrayList<>(blocks.size() + 1);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (FileChannel in = FileChannel.open(segment.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmpTarget.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(TransactionLogFormat.HEADER_SIZE);
+            in.read(header, 0);
+            header.flip();
+            TransactionLogFormat.checkHeader(header.duplicate());
+            out.write(header);
+
+            long indexedEnd = blocks.isEmpty() ? TransactionLogFormat.HEADER_SIZE : blocks.get(blocks.size() - 1).end;
+            TransactionLogIndex.Block tail = TransactionLogIndex.readTail(in, indexedEnd);
+            if (tail != null) {
+                blocks.add(tail);
+            }
+            for (TransactionLogIndex.Block block : blocks) {
+                ByteBuffer raw = in.map(FileChannel.MapMode.READ_ONLY, block.start, block.end - block.start);
+                byte[] data = deflate(deflater, raw);
+
+                TransactionLogIndex.Block frame = block.copy();
+                frame.rawLength = (int) (block.end - block.start);
+                frame.start = out.position() + TransactionLogFormat.FRAME_HEADER_SIZE;
+                frame.end = frame.start + data.length;
+                ByteBuffer buffer = ByteBuffer.allocate(TransactionLogFormat.FRAME_HEADER_SIZE + data.length);
+                buffer.putInt(data.length).putInt(frame.rawLength).put(data).flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                compressed.add(frame);
+            }
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+
+        TransactionLogIndex.writeAll(tmpIndex, compressed);
+        // 인덱스를 먼저 옮겨 .binz가 보이면 항상 인덱스도 있도록 합니다
+        Files.move(tmpIndex.toPath(), targetIndex.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmpTarget.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(segment.toPath());
+        Files.deleteIfExists(index.toPath());
+        return target;
+    }
+
+    private static byte[] deflate(Deflater deflater, ByteBuffer raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buffer = new byte[Math.max(64, raw.remaining() / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                byte[] grown = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, 0, length);
+                buffer = grown;
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        byte[] data = new byte[length];
+        System.arraycopy(buffer, 0, data, 0, length);
+        return data;
+    }
+}
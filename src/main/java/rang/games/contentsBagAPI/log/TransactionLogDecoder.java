@@ -0,0 +1,93 @@
+package rang.games.contentsBagAPI.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 바이너리 트랜잭션 로그(.bin, .binz)를 기존 텍스트 로그 형식으로 출력하는 명령줄 도구입니다.
+ *
+ * <pre>
+ * java -cp ContentsBagAPI.jar rang.games.contentsBagAPI.log.TransactionLogDecoder [--subject &lt;uuid&gt;] 파일...
+ * </pre>
+ */
+public final class TransactionLogDecoder {
+    private TransactionLogDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        UUID subject = null;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--subject") && i + 1 < args.length) {
+                subject = UUID.fromString(args[++i]);
+            } else {
+                files.add(new File(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: TransactionLogDecoder [--subject <uuid>] <segment.bin|segment.binz>...");
+            System.exit(1);
+        }
+
+        UUID filter = subject;
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        for (File file : files) {
+            try {
+                decode(file, record -> {
+                    if (filter != null && !record.involves(filter)) {
+                        return;
+                    }
+                    try {
+                        out.write(record.format());
+                        out.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException e) {
+                out.flush();
+                System.err.println(file + ": " + e.getMessage());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 세그먼트 파일 하나의 기록을 순서대로 해석합니다.
+     */
+    public static void decode(File file, Consumer<TransactionRecord> consumer) throws IOException {
+        boolean compressed = TransactionLogIndex.isCompressed(file);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            TransactionLogFormat.checkHeader(buffer);
+            Map<Integer, String> reasons = new HashMap<>();
+            if (!compressed) {
+                TransactionLogFormat.decode(buffer, reasons, consumer);
+                return;
+            }
+            while (buffer.remaining() >= TransactionLogFormat.FRAME_HEADER_SIZE) {
+                int compressedLength = buffer.getInt();
+                int rawLength = buffer.getInt();
+                if (compressedLength < 0 || compressedLength > buffer.remaining()) {
+                    return;
+                }
+                ByteBuffer frame = buffer.slice(buffer.position(), compressedLength);
+                buffer.position(buffer.position() + compressedLength);
+                TransactionLogFormat.decode(TransactionLogFormat.inflate(frame, rawLength), reasons, consumer);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package rang.games.contentsBagAPI.log;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 바이너리 트랜잭션 로그 세그먼트의 레코드 형식입니다.
+ *
+ * <pre>
+ * 세그먼트: [magic int][version short] 레코드...
+ * 레코드:   [길이 int][종류 byte][본문]      길이는 종류+본문 바이트 수
+ *   REASON       [id int][길이 short][UTF-8 바이트]
+ *   TRANSACTION  [시각 long][플레이어 long×2][아이템 long×2][이전 수량 int][새 수량 int][사유 id int]
+ * </pre>
+ *
+ * 사유 문자열은 세그먼트 안에서 번호로 바뀌며, 인덱스 블록마다 처음 쓰일 때 다시 정의되므로
+ * 블록 하나만 읽어도 해석할 수 있습니다. 압축 세그먼트(.binz)는 블록마다 따로 deflate한
+ * [압축 길이 int][원본 길이 int][데이터] 프레임의 연속입니다.
+ */
+public final class TransactionLogFormat {
+    public static final int MAGIC = 0x4342544C; // "CBTL"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 6;
+    public static final int FRAME_HEADER_SIZE = 8;
+    static final byte TYPE_REASON = 1;
+    static final byte TYPE_TRANSACTION = 2;
+    static final int TRANSACTION_SIZE = 4 + 1 + 8 + 32 + 4 + 4 + 4;
+    private static final int MAX_REASON_BYTES = 0xFFFF;
+
+    private TransactionLogFormat() {
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putShort(VERSION);
+    }
+
+    static void checkHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a transaction log segment");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported transaction log version: " + version);
+        }
+    }
+
+    static byte[] reasonBytes(String reason) {
+        byte[] bytes = reason.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_REASON_BYTES) {
+            return bytes;
+        }
+        byte[] truncated = new byte[MAX_REASON_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, MAX_REASON_BYTES);
+        return truncated;
+    }
+
+    static void writeReason(ByteBuffer buffer, int id, byte[] reason) {
+        buffer.putInt(1 + 4 + 2 + reason.length)
+                .put(TYPE_REASON)
+                .putInt(id)
+                .putShort((short) reason.length)
+                .put(reason);
+    }
+
+    static void writeTransaction(ByteBuffer buffer, long timestamp, UUID playerUUID, UUID itemUUID,
+                                 int oldCount, int newCount, int reasonId) {
+        buffer.putInt(TRANSACTION_SIZE - 4)
+                .put(TYPE_TRANSACTION)
+                .putLong(timestamp)
+                .putLong(playerUUID.getMostSignificantBits())
+                .putLong(playerUUID.getLeastSignificantBits())
+                .putLong(itemUUID.getMostSignificantBits())
+                .putLong(itemUUID.getLeastSignificantBits())
+                .putInt(oldCount)
+                .putInt(newCount)
+                .putInt(reasonId);
+    }
+
+    /**
+     * 버퍼의 레코드를 끝까지 해석합니다. 잘린 마지막 레코드(비정상 종료)는 무시합니다.
+     * @param reasons 사유 번호 → 문자열. 해석하면서 채워집니다.
+     */
+    static void decode(ByteBuffer buffer, Map<Integer, String> reasons, Consumer<TransactionRecord> consumer) {
+        while (buffer.remaining() >= 5) {
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return;
+            }
+            int next = buffer.position() + length;
+            try {
+                byte type = buffer.get();
+                if (type == TYPE_REASON) {
+                    int id = buffer.getInt();
+                    byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+                    buffer.get(bytes);
+                    reasons.put(id, new String(bytes, StandardCharsets.UTF_8));
+                } else if (type == TYPE_TRANSACTION) {
+                    long timestamp = buffer.getLong();
+                    UUID playerUUID = new UUID(buffer.getLong(), buffer.getLong());
+                    UUID itemUUID = new UUID(buffer.getLong(), buffer.getLong());
+                    int oldCount = buffer.getInt();
+                    int newCount = buffer.getInt();
+                    String reason = reasons.getOrDefault(buffer.getInt(), "");
+                    consumer.accept(new TransactionRecord(timestamp, playerUUID, itemUUID, oldCount, newCount, reason));
+                }
+            } catch (BufferUnderflowException e) {
+                return;
+            }
+            buffer.position(next);
+        }
+    }
+
+    /**
+     * 압축 프레임 하나를 풉니다.
+     */
+    static ByteBuffer inflate(ByteBuffer compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            return ByteBuffer.wrap(raw, 0, read);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
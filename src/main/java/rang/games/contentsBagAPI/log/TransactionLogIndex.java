@@ -0,0 +1,221 @@
+package rang.games.contentsBagAPI.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 트랜잭션 로그 세그먼트마다 두는 희소 인덱스입니다.
+ *
+ * 세그먼트를 일정 레코드 수(또는 크기)의 블록으로 나누고, 블록마다 파일 범위, 시간 범위, 등장한 플레이어/아이템 UUID를
+ * 인덱스 파일(.bin → .idx, .binz → .zidx)에 기록합니다. 조회 시에는 대상 UUID와 시간 범위가 맞는 블록만
+ * 메모리 매핑해 읽습니다.
+ */
+public final class TransactionLogIndex {
+    static final int BLOCK_RECORDS = 1024;
+    static final long BLOCK_BYTES = 256 * 1024;
+
+    private TransactionLogIndex() {
+    }
+
+    /**
+     * 인덱스 블록 하나입니다. 데이터 파일의 [start, end) 범위를 요약하며,
+     * 압축 세그먼트에서는 이 범위가 압축된 데이터이고 rawLength가 원본 크기입니다.
+     */
+    static final class Block {
+        long start;
+        long end;
+        int rawLength;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        int records;
+        final Set<UUID> subjects;
+
+        Block(long start) {
+            this(start, new HashSet<>());
+        }
+
+        private Block(long start, Set<UUID> subjects) {
+            this.start = start;
+            this.end = start;
+            this.subjects = subjects;
+        }
+
+        void add(TransactionRecord record) {
+            records++;
+            minTimestamp = Math.min(minTimestamp, record.getTimestamp());
+            maxTimestamp = Math.max(maxTimestamp, record.getTimestamp());
+            subjects.add(record.getPlayerUUID());
+            subjects.add(record.getItemUUID());
+        }
+
+        boolean matches(UUID subject, long from, long to) {
+            return records > 0 && maxTimestamp >= from && minTimestamp <= to && subjects.contains(subject);
+        }
+
+        Block copy() {
+            Block copy = new Block(start, new HashSet<>(subjects));
+            copy.end = end;
+            copy.rawLength = rawLength;
+            copy.minTimestamp = minTimestamp;
+            copy.maxTimestamp = maxTimestamp;
+            copy.records = records;
+            return copy;
+        }
+    }
+
+    static File indexFileFor(File dataFile) {
+        String name = dataFile.getName();
+        if (name.endsWith(".binz")) {
+            return new File(dataFile.getParentFile(), name.substring(0, name.length() - 5) + ".zidx");
+        }
+        int dot = name.lastIndexOf('.');
+        return new File(dataFile.getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + ".idx");
+    }
+
+    static boolean isCompressed(File dataFile) {
+        return dataFile.getName().endsWith(".binz");
+    }
+
+    static void append(File indexFile, Block block) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            write(out, block);
+        }
+    }
+
+    static void writeAll(File indexFile, List<Block> blocks) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            for (Block block : blocks) {
+                write(out, block);
+            }
+        }
+    }
+
+    private static void write(DataOutputStream out, Block block) throws IOException {
+        out.writeLong(block.start);
+        out.writeLong(block.end);
+        out.writeInt(block.rawLength);
+        out.writeLong(block.minTimestamp);
+        out.writeLong(block.maxTimestamp);
+        out.writeInt(block.records);
+        out.writeInt(block.subjects.size());
+        for (UUID subject : block.subjects) {
+            out.writeLong(subject.getMostSignificantBits());
+            out.writeLong(subject.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * 인덱스 파일을 읽습니다. 잘린 마지막 레코드(비정상 종료)는 파일에서 잘라냅니다.
+     */
+    static List<Block> read(File indexFile) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        if (!indexFile.exists()) {
+            return blocks;
+        }
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            while (true) {
+                Block block = new Block(in.readLong());
+                block.end = in.readLong();
+                block.rawLength = in.readInt();
+                block.minTimestamp = in.readLong();
+                block.maxTimestamp = in.readLong();
+                block.records = in.readInt();
+                int subjects = in.readInt();
+                for (int i = 0; i < subjects; i++) {
+                    block.subjects.add(new UUID(in.readLong(), in.readLong()));
+                }
+                blocks.add(block);
+                valid += 44 + 16L * subjects;
+            }
+        } catch (EOFException e) {
+            if (indexFile.length() > valid) {
+                try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+                    raf.setLength(valid);
+                }
+            }
+            return blocks;
+        }
+    }
+
+    /**
+     * 비압축 세그먼트에서 인덱스가 덮지 않는 꼬리(비정상 종료로 기록되지 못한 블록)를 해석해 블록으로 만듭니다.
+     * @return 꼬리가 없으면 null
+     */
+    static Block readTail(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        if (size <= from) {
+            return null;
+        }
+        Block tail = new Block(from);
+        tail.end = size;
+        tail.rawLength = (int) (size - from);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, size - from);
+        TransactionLogFormat.decode(buffer, new HashMap<>(), tail::add);
+        return tail.records > 0 ? tail : null;
+    }
+
+    /**
+     * 닫힌 세그먼트(비압축 또는 압축)에서 대상 UUID의 기록을 조회합니다.
+     * @see #scan
+     */
+    static List<TransactionRecord> query(File dataFile, UUID subject, long from, long to, int limit) throws IOException {
+        boolean compressed = isCompressed(dataFile);
+        List<Block> blocks = read(indexFileFor(dataFile));
+        try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+            if (!compressed) {
+                long indexedEnd = blocks.isEmpty() ? TransactionLogFormat.HEADER_SIZE : blocks.get(blocks.size() - 1).end;
+                Block tail = readTail(channel, indexedEnd);
+                if (tail != null) {
+                    blocks.add(tail);
+                }
+            }
+            return scan(channel, blocks, compressed, subject, from, to, limit);
+        }
+    }
+
+    /**
+     * 블록을 최신 것부터 거꾸로 읽어 limit개 이상 모이면 멈춥니다. 블록 단위로 읽으므로 limit보다 조금 많을 수 있으며,
+     * 결과는 시간 순으로 정렬되어 있지 않습니다.
+     */
+    static List<TransactionRecord> scan(FileChannel channel, List<Block> blocks, boolean compressed,
+                                        UUID subject, long from, long to, int limit) throws IOException {
+        List<TransactionRecord> records = new ArrayList<>();
+        long size = channel.size();
+        for (int i = blocks.size() - 1; i >= 0 && records.size() < limit; i--) {
+            Block block = blocks.get(i);
+            if (!block.matches(subject, from, to) || block.start >= size) {
+                continue;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, block.start, Math.min(block.end, size) - block.start);
+            if (compressed) {
+                buffer = TransactionLogFormat.inflate(buffer, block.rawLength);
+            }
+            TransactionLogFormat.decode(buffer, new HashMap<>(), record -> {
+                if (record.involves(subject) && record.getTimestamp() >= from && record.getTimestamp() <= to) {
+                    records.add(record);
+                }
+            });
+        }
+        return records;
+    }
+}
@@ -1,41 +1,245 @@
 package rang.games.contentsBagAPI.log;
 
 import org.bukkit.plugin.Plugin;
+import rang.games.contentsBagAPI.config.ConfigManager;
+
 import java.io.File;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+/**
+ * 아이템 변경 기록은 바이너리 세그먼트(logs/transactions-날짜-번호.bin)에, 일반 로그는
+ * 날짜별 텍스트 파일(logs/contentsbag-날짜.log)에 남깁니다.
+ *
+ * 세그먼트는 날짜가 바뀌거나 설정된 크기를 넘으면 새 파일로 넘어가고, 닫힌 세그먼트는 백그라운드에서 압축됩니다.
+ * 텍스트로 보려면 {@link TransactionLogDecoder}를 사용합니다.
+ */
 public class TransactionLogger {
+    /**
+     * 조회 개수를 지정하지 않은 기록 조회의 최대 개수입니다.
+     */
+    public static final int DEFAULT_HISTORY_LIMIT = 1000;
+
     private final Logger logger;
-    private final File logFile;
+    private final File logsDir;
+    private final long segmentBytes;
+    private final boolean compress;
+    private final ExecutorService compressor;
+    private TransactionSegment segment;
     private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final DateTimeFormatter fileFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String TEXT_PREFIX = "contentsbag-";
+    private static final String TEXT_SUFFIX = ".log";
 
-    public TransactionLogger(Plugin plugin) {
+    public TransactionLogger(Plugin plugin, ConfigManager config) {
         this.logger = plugin.getLogger();
-        File logsDir = new File(plugin.getDataFolder(), "logs");
+        this.logsDir = new File(plugin.getDataFolder(), "logs");
         if (!logsDir.exists()) {
             logsDir.mkdirs();
         }
-        this.logFile = new File(logsDir, "transactions-" + LocalDateTime.now().format(fileFormatter) + ".log");
+        this.segmentBytes = config.getTransactionLogSegmentBytes();
+        this.compress = config.isTransactionLogCompressed();
+        this.compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "ContentsBag-LogCompressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // 이전 실행에서 닫힌(또는 비정상 종료로 남은) 세그먼트는 새 세그먼트를 열기 전에 압축 대상으로 넘깁니다
+        File[] leftovers = logsDir.listFiles((dir, name) ->
+                name.startsWith(TransactionSegment.PREFIX) && name.endsWith(TransactionSegment.SUFFIX));
+        if (compress && leftovers != null) {
+            for (File leftover : leftovers) {
+                scheduleCompression(leftover);
+            }
+        }
+        synchronized (this) {
+            openSegment(LocalDate.now());
+        }
+    }
+
+    private void openSegment(LocalDate day) {
+        try {
+            segment = TransactionSegment.create(logsDir, day);
+        } catch (IOException e) {
+            segment = null;
+            logger.warning("Failed to open transaction log segment: " + e.getMessage());
+        }
+    }
+
+    private void scheduleCompression(File file) {
+        compressor.execute(() -> {
+            if (!file.exists()) {
+                return;
+            }
+            try {
+                SegmentCompressor.compress(file);
+            } catch (IOException e) {
+                logger.warning("Failed to compress transaction log segment " + file.getName() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 날짜가 바뀌었거나 크기를 넘은 세그먼트를 닫고 새 세그먼트를 엽니다. 호출자는 this로 동기화해야 합니다.
+     */
+    private void rotateIfNeeded() {
+        LocalDate today = LocalDate.now();
+        if (segment != null && segment.getDay().equals(today) && segment.size() < segmentBytes) {
+            return;
+        }
+        if (segment != null) {
+            TransactionSegment closed = segment;
+            try {
+                closed.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close transaction log segment: " + e.getMessage());
+            }
+            if (compress) {
+                scheduleCompression(closed.getFile());
+            }
+        }
+        openSegment(today);
     }
 
     public void logItemTransaction(UUID playerUUID, UUID itemUUID, int oldCount, int newCount, String reason) {
-        String timestamp = LocalDateTime.now().format(dateFormatter);
-        String change = newCount - oldCount > 0 ? "+" + (newCount - oldCount) : String.valueOf(newCount - oldCount);
-        String logMessage = String.format("[%s] Player: %s | Item: %s | Change: %s (%d → %d) | Reason: %s",
-                timestamp, playerUUID, itemUUID, change, oldCount, newCount, reason);
+        TransactionRecord record = new TransactionRecord(System.currentTimeMillis(), playerUUID, itemUUID,
+                oldCount, newCount, reason);
 
-        //logger.info(logMessage);
+        //logger.info(record.format());
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFile, true))) {
-            writer.println(logMessage);
-        } catch (Exception e) {
-            logger.warning("Failed to write to transaction log file: " + e.getMessage());
+        synchronized (this) {
+            rotateIfNeeded();
+            if (segment == null) {
+                return;
+            }
+            try {
+                segment.append(record);
+            } catch (Exception e) {
+                logger.warning("Failed to write to transaction log file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 플레이어 또는 아이템 UUID의 아이템 변경 기록을 시간 범위로 조회합니다 (동기 호출).
+     * 세그먼트별 인덱스로 해당 UUID가 등장한 블록만 읽고, 압축된 세그먼트는 그 블록만 풉니다.
+     * 최신 세그먼트부터 거꾸로 읽어 limit개가 모이면 더 이전 세그먼트는 읽지 않습니다.
+     * @param subject 플레이어 또는 아이템 UUID
+     * @param from 시작 시각 (epoch millis, 포함)
+     * @param to 끝 시각 (epoch millis, 포함)
+     * @param limit 최대 개수 (범위 안의 가장 최근 기록부터)
+     * @return 시간 순 기록
+     */
+    public List<TransactionRecord> queryHistory(UUID subject, long from, long to, int limit) throws IOException {
+        List<TransactionRecord> records = new ArrayList<>();
+        if (limit <= 0) {
+            return records;
+        }
+        TransactionSegment current;
+        synchronized (this) {
+            current = segment;
+        }
+        File[] segments = logsDir.listFiles((dir, name) -> name.startsWith(TransactionSegment.PREFIX)
+                && (name.endsWith(TransactionSegment.SUFFIX) || name.endsWith(TransactionSegment.COMPRESSED_SUFFIX)));
+        if (segments == null) {
+            return records;
+        }
+        Set<File> listed = new HashSet<>(Arrays.asList(segments));
+        // 날짜, 번호 순으로 최신 세그먼트부터 (이름 형식이 다른 파일은 마지막에)
+        Arrays.sort(segments, Comparator.comparing(TransactionSegment::segmentDay,
+                        Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+                .thenComparingInt(file -> TransactionSegment.segmentNumber(file.getName()))
+                .reversed());
+        for (File file : segments) {
+            if (records.size() >= limit) {
+                break;
+            }
+            int remaining = limit - records.size();
+            boolean raw = file.getName().endsWith(TransactionSegment.SUFFIX);
+            if (raw && listed.contains(SegmentCompressor.compressedFileFor(file))) {
+                // 압축본이 있으면 그쪽을 읽습니다 (원본은 곧 지워집니다)
+                continue;
+            }
+            // 세그먼트는 파일 이름의 날짜에 시작하므로 그보다 이른 범위만 찾는다면 건너뜁니다
+            LocalDate day = TransactionSegment.segmentDay(file);
+            if (day != null && day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() > to) {
+                continue;
+            }
+            if (current != null && file.equals(current.getFile())) {
+                try {
+                    records.addAll(current.query(subject, from, to, remaining));
+                    continue;
+                } catch (ClosedChannelException e) {
+                    // 조회 도중 세그먼트가 교체되어 닫힌 경우 파일에서 읽습니다
+                }
+            }
+            records.addAll(querySegment(file, subject, from, to, remaining));
+        }
+        records.sort(Comparator.comparingLong(TransactionRecord::getTimestamp));
+        if (records.size() > limit) {
+            return new ArrayList<>(records.subList(records.size() - limit, records.size()));
+        }
+        return records;
+    }
+
+    private static List<TransactionRecord> querySegment(File file, UUID subject, long from, long to, int limit)
+            throws IOException {
+        boolean raw = file.getName().endsWith(TransactionSegment.SUFFIX);
+        File compressed = raw ? SegmentCompressor.compressedFileFor(file) : file;
+        try {
+            return TransactionLogIndex.query(file, subject, from, to, limit);
+        } catch (NoSuchFileException e) {
+            // 목록을 읽은 뒤 압축이 끝나 원본이 지워진 경우
+            if (raw && compressed.exists()) {
+                return TransactionLogIndex.query(compressed, subject, from, to, limit);
+            }
+            return List.of();
+        }
+    }
+
+    /**
+     * 현재 세그먼트를 닫고 진행 중인 압축을 기다립니다. 플러그인 종료 시 호출합니다.
+     * 현재 세그먼트는 다음 시작 때 압축됩니다.
+     */
+    public void close() {
+        synchronized (this) {
+            if (segment != null) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    logger.warning("Failed to close transaction log segment: " + e.getMessage());
+                }
+                segment = null;
+            }
+        }
+        compressor.shutdown();
+        try {
+            if (!compressor.awaitTermination(10, TimeUnit.SECONDS)) {
+                compressor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            compressor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -66,12 +270,12 @@ public class TransactionLogger {
         logToFile("ERROR", message);
     }
 
-    private void logToFile(String level, String message) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(logFile, true))) {
-            writer.printf("[%s] [%s] %s%n",
-                    LocalDateTime.now().format(dateFormatter),
-                    level,
-                    message);
+    private synchronized void logToFile(String level, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        File logFile = new File(logsDir, TEXT_PREFIX + now.format(fileFormatter) + TEXT_SUFFIX);
+        String line = String.format("[%s] [%s] %s", now.format(dateFormatter), level, message) + System.lineSeparator();
+        try (OutputStream out = new FileOutputStream(logFile, true)) {
+            out.write(line.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             logger.warning("Failed to write to log file: " + e.getMessage());
         }
@@ -0,0 +1,65 @@
+package rang.games.contentsBagAPI.log;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * 트랜잭션 로그의 아이템 변경 기록 하나입니다.
+ */
+public class TransactionRecord {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final long timestamp;
+    private final UUID playerUUID;
+    private final UUID itemUUID;
+    private final int oldCount;
+    private final int newCount;
+    private final String reason;
+
+    public TransactionRecord(long timestamp, UUID playerUUID, UUID itemUUID, int oldCount, int newCount, String reason) {
+        this.timestamp = timestamp;
+        this.playerUUID = playerUUID;
+        this.itemUUID = itemUUID;
+        this.oldCount = oldCount;
+        this.newCount = newCount;
+        this.reason = reason;
+    }
+
+    /**
+     * 예전 텍스트 로그와 같은 형식의 한 줄로 표시합니다.
+     */
+    public String format() {
+        int delta = getDelta();
+        String change = delta > 0 ? "+" + delta : String.valueOf(delta);
+        return String.format("[%s] Player: %s | Item: %s | Change: %s (%d → %d) | Reason: %s",
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).format(TIME_FORMAT),
+                playerUUID, itemUUID, change, oldCount, newCount, reason);
+    }
+
+    public boolean involves(UUID uuid) {
+        return playerUUID.equals(uuid) || itemUUID.equals(uuid);
+    }
+
+    public long getTimestamp() { return timestamp; }
+    public UUID getPlayerUUID() { return playerUUID; }
+    public UUID getItemUUID() { return itemUUID; }
+    public int getOldCount() { return oldCount; }
+    public int getNewCount() { return newCount; }
+    public int getDelta() { return newCount - oldCount; }
+    public String getReason() { return reason; }
+
+    @Override
+    public String toString() {
+        return "TransactionRecord{" +
+                "timestamp=" + timestamp +
+                ", playerUUID=" + playerUUID +
+                ", itemUUID=" + itemUUID +
+                ", oldCount=" + oldCount +
+                ", newCount=" + newCount +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
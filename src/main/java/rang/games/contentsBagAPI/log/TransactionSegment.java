@@ -0,0 +1,157 @@
+package rang.games.contentsBagAPI.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 현재 기록 중인 바이너리 트랜잭션 로그 세그먼트입니다.
+ *
+ * 레코드를 덧붙이면서 인덱스 블록을 만들고, 블록이 차면 .idx 파일에 기록합니다.
+ * 아직 닫히지 않은 마지막 블록은 메모리에 유지되어 조회에 포함됩니다.
+ */
+class TransactionSegment {
+    static final String PREFIX = "transactions-";
+    static final String SUFFIX = ".bin";
+    static final String COMPRESSED_SUFFIX = ".binz";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final File file;
+    private final File indexFile;
+    private final LocalDate day;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(TransactionLogFormat.TRANSACTION_SIZE + 0x10010);
+    private final Map<String, Integer> reasonIds = new HashMap<>();
+    private final Set<Integer> reasonsInBlock = new HashSet<>();
+    private final List<TransactionLogIndex.Block> blocks = new ArrayList<>();
+    private TransactionLogIndex.Block current;
+    private long position;
+
+    private TransactionSegment(File file, LocalDate day) throws IOException {
+        this.file = file;
+        this.indexFile = TransactionLogIndex.indexFileFor(file);
+        this.day = day;
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        buffer.clear();
+        TransactionLogFormat.writeHeader(buffer);
+        buffer.flip();
+        channel.write(buffer, 0);
+        this.position = TransactionLogFormat.HEADER_SIZE;
+        this.current = new TransactionLogIndex.Block(position);
+    }
+
+    /**
+     * 해당 날짜의 다음 번호로 새 세그먼트를 만듭니다. 재시작 시에도 기존 파일에 이어 쓰지 않습니다.
+     */
+    static TransactionSegment create(File logsDir, LocalDate day) throws IOException {
+        String dayPrefix = PREFIX + day.format(DAY_FORMAT) + "-";
+        int next = 1;
+        File[] existing = logsDir.listFiles((dir, name) -> name.startsWith(dayPrefix));
+        if (existing != null) {
+            for (File file : existing) {
+                next = Math.max(next, segmentNumber(file.getName()) + 1);
+            }
+        }
+        return new TransactionSegment(new File(logsDir, String.format("%s%03d%s", dayPrefix, next, SUFFIX)), day);
+    }
+
+    static int segmentNumber(String name) {
+        int dash = name.lastIndexOf('-');
+        int dot = name.indexOf('.', dash);
+        try {
+            return Integer.parseInt(name.substring(dash + 1, dot < 0 ? name.length() : dot));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 세그먼트 파일 이름의 날짜입니다. 형식이 맞지 않으면 null입니다.
+     */
+    static LocalDate segmentDay(File file) {
+        String name = file.getName();
+        if (!name.startsWith(PREFIX) || name.length() < PREFIX.length() + 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(name.substring(PREFIX.length(), PREFIX.length() + 10), DAY_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    LocalDate getDay() {
+        return day;
+    }
+
+    synchronized long size() {
+        return position;
+    }
+
+    synchronized void append(TransactionRecord record) throws IOException {
+        buffer.clear();
+        int reasonId = reasonIds.computeIfAbsent(record.getReason(), reason -> reasonIds.size());
+        if (reasonsInBlock.add(reasonId)) {
+            TransactionLogFormat.writeReason(buffer, reasonId, TransactionLogFormat.reasonBytes(record.getReason()));
+        }
+        TransactionLogFormat.writeTransaction(buffer, record.getTimestamp(), record.getPlayerUUID(),
+                record.getItemUUID(), record.getOldCount(), record.getNewCount(), reasonId);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+
+        current.end = position;
+        current.add(record);
+        if (current.records >= TransactionLogIndex.BLOCK_RECORDS
+                || current.end - current.start >= TransactionLogIndex.BLOCK_BYTES) {
+            flushBlock();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (current.records == 0) {
+            return;
+        }
+        current.rawLength = (int) (current.end - current.start);
+        TransactionLogIndex.append(indexFile, current);
+        blocks.add(current);
+        current = new TransactionLogIndex.Block(position);
+        // 다음 블록이 혼자서도 해석되도록 사유를 다시 정의합니다
+        reasonsInBlock.clear();
+    }
+
+    /**
+     * 이 세그먼트에서 대상 UUID(플레이어 또는 아이템)의 기록을 조회합니다.
+     */
+    List<TransactionRecord> query(UUID subject, long from, long to, int limit) throws IOException {
+        List<TransactionLogIndex.Block> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(blocks);
+            snapshot.add(current.copy());
+        }
+        return TransactionLogIndex.scan(channel, snapshot, false, subject, from, to, limit);
+    }
+
+    synchronized void close() throws IOException {
+        flushBlock();
+        channel.close();
+    }
+}
@@ -0,0 +1,74 @@
+package rang.games.contentsBagAPI.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 특정 시점의 플레이어 가방을 나타내는 불변 스냅샷입니다.
+ * 가방이 바뀌기 전까지 모든 조회자가 같은 인스턴스를 공유합니다.
+ */
+public class BagSnapshot {
+    private final UUID playerUUID;
+    private final long version;
+    private final Map<UUID, Integer> counts;
+    private final long totalValue;
+
+    BagSnapshot(UUID playerUUID, long version, Map<UUID, Integer> counts, long totalValue) {
+        this.playerUUID = playerUUID;
+        this.version = version;
+        this.counts = Collections.unmodifiableMap(counts);
+        this.totalValue = totalValue;
+    }
+
+    public UUID getPlayerUUID() {
+        return playerUUID;
+    }
+
+    /**
+     * 스냅샷을 만든 시점의 변경 번호입니다. 변경 번호는 모든 가방에 걸쳐 증가하므로
+     * 가방이 다시 로드되어도 이전 번호와 겹치지 않습니다.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 스냅샷 시점의 가방 총 가치(최소 단위 0.01)입니다.
+     */
+    public long getTotalValue() {
+        return totalValue;
+    }
+
+    public int getCount(UUID contentItemUUID) {
+        return counts.getOrDefault(contentItemUUID, 0);
+    }
+
+    /**
+     * 보유 수량 맵입니다. 수정할 수 없으며 복사 없이 반환됩니다.
+     */
+    public Map<UUID, Integer> getCounts() {
+        return counts;
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * 이전에 받은 스냅샷 이후로 가방이 바뀌었는지 확인합니다.
+     */
+    public boolean hasChangedSince(BagSnapshot previous) {
+        return previous == null || previous.version != version || !previous.playerUUID.equals(playerUUID);
+    }
+
+    @Override
+    public String toString() {
+        return "BagSnapshot{" +
+                "playerUUID=" + playerUUID +
+                ", version=" + version +
+                ", items=" + counts.size() +
+                ", totalValue=" + totalValue +
+                '}';
+    }
+}
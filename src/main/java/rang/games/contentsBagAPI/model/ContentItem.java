@@ -4,25 +4,35 @@ import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
 
 import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Base64;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.logging.Logger;
 
 public class ContentItem {
+    /**
+     * 가격 소수 자릿수입니다. items.Price 컬럼(DECIMAL(20,2))과 같아야 합니다.
+     */
+    public static final int PRICE_SCALE = 2;
+
     private final UUID uuid;
     private final String serializedItem;
-    private final Double price;
+    private final long priceMinor;
     private final Integer type;
     private final Integer slot;
     private final ItemStack itemStack;
     private final String itemName;
     private final String itemTypeName;
 
-    public ContentItem(UUID uuid, String serializedItem, Double price, Integer type, Integer slot) {
+    /**
+     * @param priceMinor 최소 단위(0.01) 가격
+     */
+    public ContentItem(UUID uuid, String serializedItem, long priceMinor, Integer type, Integer slot) {
         this.uuid = Objects.requireNonNull(uuid, "UUID cannot be null");
         this.serializedItem = Objects.requireNonNull(serializedItem, "Serialized item cannot be null");
-        this.price = Objects.requireNonNull(price, "Price cannot be null");
+        this.priceMinor = priceMinor;
         this.type = Objects.requireNonNull(type, "Type cannot be null");
         this.slot = Objects.requireNonNull(slot, "Slot cannot be null");
 
@@ -31,6 +41,23 @@ public class ContentItem {
         this.itemTypeName = resolveItemTypeName(this.itemStack);
     }
 
+    /**
+     * @deprecated 부동소수점 가격입니다. {@link #ContentItem(UUID, String, long, Integer, Integer)}를 사용하세요.
+     */
+    @Deprecated
+    public ContentItem(UUID uuid, String serializedItem, Double price, Integer type, Integer slot) {
+        this(uuid, serializedItem, toMinorUnits(BigDecimal.valueOf(Objects.requireNonNull(price, "Price cannot be null"))),
+                type, slot);
+    }
+
+    /**
+     * DECIMAL 가격을 최소 단위 정수로 바꿉니다. 소수 자릿수가 더 많으면 반올림합니다.
+     * @throws ArithmeticException 최소 단위 값이 long 범위를 넘으면
+     */
+    public static long toMinorUnits(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
     private ItemStack extractItem(String serializedItem) {
         try {
             Class<?> classesClass = Class.forName("ch.njol.skript.registrations.Classes");
@@ -79,7 +106,17 @@ public class ContentItem {
 
     public UUID getUUID() { return uuid; }
     public String getSerializedItem() { return serializedItem; }
-    public Double getPrice() { return price; }
+    /**
+     * 최소 단위(0.01) 정수 가격입니다. 합계와 비교는 이 값으로 해야 정확합니다.
+     */
+    public long getPriceMinor() { return priceMinor; }
+    public BigDecimal getPriceDecimal() { return BigDecimal.valueOf(priceMinor, PRICE_SCALE); }
+
+    /**
+     * @deprecated 부동소수점 값입니다. {@link #getPriceMinor()}나 {@link #getPriceDecimal()}을 사용하세요.
+     */
+    @Deprecated
+    public Double getPrice() { return getPriceDecimal().doubleValue(); }
     public Integer getType() { return type; }
     public Integer getSlot() { return slot; }
     public ItemStack getItemStack() { return itemStack; }
@@ -105,7 +142,7 @@ public class ContentItem {
                 "uuid=" + uuid +
                 ", type=" + type +
                 ", slot=" + slot +
-                ", price=" + price +
+                ", price=" + getPriceDecimal() +
                 ", itemName='" + itemName + '\'' +
                 ", itemTypeName='" + itemTypeName + '\'' +
                 '}';
@@ -118,16 +155,23 @@ public class ContentItem {
     public static class Builder {
         private UUID uuid;
         private String serializedItem;
-        private Double price;
+        private long priceMinor;
         private Integer type;
         private Integer slot;
 
         public Builder uuid(UUID uuid) { this.uuid = uuid; return this; }
         public Builder serializedItem(String serializedItem) { this.serializedItem = serializedItem; return this; }
-        public Builder price(Double price) { this.price = price; return this; }
+        public Builder priceMinor(long priceMinor) { this.priceMinor = priceMinor; return this; }
+        public Builder price(BigDecimal price) { this.priceMinor = toMinorUnits(price); return this; }
+
+        /**
+         * @deprecated {@link #price(BigDecimal)}나 {@link #priceMinor(long)}을 사용하세요.
+         */
+        @Deprecated
+        public Builder price(Double price) { this.priceMinor = toMinorUnits(BigDecimal.valueOf(price)); return this; }
         public Builder type(Integer type) { this.type = type; return this; }
         public Builder slot(Integer slot) { this.slot = slot; return this; }
 
-        public ContentItem build() { return new ContentItem(uuid, serializedItem, price, type, slot); }
+        public ContentItem build() { return new ContentItem(uuid, serializedItem, priceMinor, type, slot); }
     }
 }
\ No newline at end of file
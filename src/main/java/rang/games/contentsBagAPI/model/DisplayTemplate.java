@@ -0,0 +1,76 @@
+package rang.games.contentsBagAPI.model;
+
+import org.bukkit.ChatColor;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 콘텐츠 아이템을 메뉴에 보여줄 때 쓰는 미리 준비된 표시 아이템입니다.
+ *
+ * 카탈로그를 불러올 때 한 번 아이템 메타를 만들고 원래 설명과 가격 줄을 붙여 둡니다.
+ * 화면을 그릴 때는 메타를 복사해 보유 수량 줄만 채우므로, 아이템 메타를 다시 해석하거나 설명을 다시 만들지 않습니다.
+ */
+public class DisplayTemplate {
+    private final ItemStack base;
+    private final ItemMeta meta;
+    private final List<String> staticLore;
+    private final String countLine;
+
+    private DisplayTemplate(ItemStack base, ItemMeta meta, List<String> staticLore, String countLine) {
+        this.base = base;
+        this.meta = meta;
+        this.staticLore = staticLore;
+        this.countLine = countLine;
+    }
+
+    /**
+     * @param priceLine 가격 줄 형식 ({price} 자리 표시), 비어 있으면 생략
+     * @param countLine 보유 수량 줄 형식 ({count} 자리 표시), 비어 있으면 생략
+     */
+    public static DisplayTemplate of(ContentItem item, String priceLine, String countLine) {
+        ItemStack source = item.getItemStack();
+        // 메타가 없는 아이템도 getItemMeta()가 새 메타를 만들어 주므로, 가격/수량 줄을 붙일 수 없는 AIR만 그대로 둡니다
+        ItemMeta meta = source.getItemMeta();
+        if (meta == null) {
+            return new DisplayTemplate(source.clone(), null, List.of(), null);
+        }
+
+        List<String> lore = new ArrayList<>();
+        if (meta.hasLore()) {
+            lore.addAll(meta.getLore());
+        }
+        if (priceLine != null && !priceLine.isEmpty()) {
+            lore.add(color(priceLine.replace("{price}", item.getPriceDecimal().toPlainString())));
+        }
+        String count = countLine != null && !countLine.isEmpty() ? color(countLine) : null;
+        meta.setLore(lore);
+        // 메타는 화면마다 새로 붙이므로 기본 아이템에는 종류와 개수만 남깁니다
+        return new DisplayTemplate(new ItemStack(source.getType(), source.getAmount()), meta, List.copyOf(lore), count);
+    }
+
+    private static String color(String text) {
+        return ChatColor.translateAlternateColorCodes('&', text);
+    }
+
+    /**
+     * 보유 수량을 채운 표시 아이템을 만듭니다. 반환된 아이템은 호출자가 자유롭게 바꿔도 됩니다.
+     */
+    public ItemStack render(int count) {
+        ItemStack stack = base.clone();
+        if (meta == null) {
+            return stack;
+        }
+        ItemMeta copy = meta.clone();
+        if (countLine != null) {
+            List<String> lore = new ArrayList<>(staticLore.size() + 1);
+            lore.addAll(staticLore);
+            lore.add(countLine.replace("{count}", Integer.toString(count)));
+            copy.setLore(lore);
+        }
+        stack.setItemMeta(copy);
+        return stack;
+    }
+}
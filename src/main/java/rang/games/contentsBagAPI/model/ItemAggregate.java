@@ -0,0 +1,35 @@
+package rang.games.contentsBagAPI.model;
+
+import java.util.UUID;
+
+/**
+ * 콘텐츠 아이템 하나의 전체 유통량과 보유자 수입니다.
+ */
+public class ItemAggregate {
+    private final UUID itemUUID;
+    private final long total;
+    private final long holders;
+
+    public ItemAggregate(UUID itemUUID, long total, long holders) {
+        this.itemUUID = itemUUID;
+        this.total = total;
+        this.holders = holders;
+    }
+
+    public ItemAggregate plus(long totalDelta, long holderDelta) {
+        return new ItemAggregate(itemUUID, total + totalDelta, holders + holderDelta);
+    }
+
+    public UUID getItemUUID() { return itemUUID; }
+    public long getTotal() { return total; }
+    public long getHolders() { return holders; }
+
+    @Override
+    public String toString() {
+        return "ItemAggregate{" +
+                "itemUUID=" + itemUUID +
+                ", total=" + total +
+                ", holders=" + holders +
+                '}';
+    }
+}
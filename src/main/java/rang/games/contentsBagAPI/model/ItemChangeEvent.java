@@ -0,0 +1,73 @@
+package rang.games.contentsBagAPI.model;
+
+import java.util.UUID;
+
+/**
+ * 플레이어 아이템 수량 변경 하나를 나타냅니다.
+ * 구독자가 따라오지 못해 여러 변경이 합쳐진 경우 oldCount는 첫 변경 이전 값, newCount는 마지막 값입니다.
+ * 버퍼가 넘쳐 이 이벤트 앞의 변경이 버려졌다면 droppedBefore가 0보다 큽니다.
+ */
+public class ItemChangeEvent {
+    private final UUID playerUUID;
+    private final UUID itemUUID;
+    private final int oldCount;
+    private final int newCount;
+    private final String reason;
+    private final long timestamp;
+    private final long droppedBefore;
+
+    public ItemChangeEvent(UUID playerUUID, UUID itemUUID, int oldCount, int newCount, String reason, long timestamp) {
+        this(playerUUID, itemUUID, oldCount, newCount, reason, timestamp, 0);
+    }
+
+    private ItemChangeEvent(UUID playerUUID, UUID itemUUID, int oldCount, int newCount, String reason, long timestamp,
+                            long droppedBefore) {
+        this.playerUUID = playerUUID;
+        this.itemUUID = itemUUID;
+        this.oldCount = oldCount;
+        this.newCount = newCount;
+        this.reason = reason;
+        this.timestamp = timestamp;
+        this.droppedBefore = droppedBefore;
+    }
+
+    /**
+     * 이 이벤트 앞에서 버려진 변경 수를 붙인 사본을 반환합니다.
+     */
+    public ItemChangeEvent withDroppedBefore(long dropped) {
+        return new ItemChangeEvent(playerUUID, itemUUID, oldCount, newCount, reason, timestamp, dropped);
+    }
+
+    /**
+     * 이 변경 뒤에 일어난 변경을 하나로 합칩니다.
+     */
+    public ItemChangeEvent coalesce(ItemChangeEvent later) {
+        return new ItemChangeEvent(playerUUID, itemUUID, oldCount, later.newCount, later.reason, later.timestamp);
+    }
+
+    public UUID getPlayerUUID() { return playerUUID; }
+    public UUID getItemUUID() { return itemUUID; }
+    public int getOldCount() { return oldCount; }
+    public int getNewCount() { return newCount; }
+    public int getDelta() { return newCount - oldCount; }
+    public String getReason() { return reason; }
+    public long getTimestamp() { return timestamp; }
+    /**
+     * 이 구독에서 직전 이벤트와 이 이벤트 사이에 버퍼 초과로 버려진 변경 수입니다. 0보다 크면 누락이 있었으므로
+     * 구독자는 필요한 값을 다시 조회해야 합니다.
+     */
+    public long getDroppedBefore() { return droppedBefore; }
+
+    @Override
+    public String toString() {
+        return "ItemChangeEvent{" +
+                "playerUUID=" + playerUUID +
+                ", itemUUID=" + itemUUID +
+                ", oldCount=" + oldCount +
+                ", newCount=" + newCount +
+                ", reason='" + reason + '\'' +
+                ", timestamp=" + timestamp +
+                ", droppedBefore=" + droppedBefore +
+                '}';
+    }
+}
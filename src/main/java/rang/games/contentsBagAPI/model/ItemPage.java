@@ -0,0 +1,33 @@
+package rang.games.contentsBagAPI.model;
+
+import java.util.List;
+
+/**
+ * 카탈로그 범위 조회의 한 페이지입니다.
+ * 다음 페이지는 {@link #getNextCursor()}를 같은 조회에 넘겨 이어서 받습니다.
+ */
+public class ItemPage {
+    private final List<ContentItem> items;
+    private final String nextCursor;
+
+    public ItemPage(List<ContentItem> items, String nextCursor) {
+        this.items = List.copyOf(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ContentItem> getItems() { return items; }
+
+    /**
+     * 다음 페이지의 커서입니다. 마지막 페이지면 null입니다.
+     */
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+
+    @Override
+    public String toString() {
+        return "ItemPage{" +
+                "items=" + items.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
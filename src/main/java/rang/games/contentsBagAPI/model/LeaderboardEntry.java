@@ -0,0 +1,34 @@
+package rang.games.contentsBagAPI.model;
+
+import java.util.UUID;
+
+/**
+ * 아이템 보유 순위의 한 항목입니다.
+ */
+public class LeaderboardEntry {
+    private final int rank;
+    private final UUID playerUUID;
+    private final int count;
+
+    public LeaderboardEntry(int rank, UUID playerUUID, int count) {
+        this.rank = rank;
+        this.playerUUID = playerUUID;
+        this.count = count;
+    }
+
+    /**
+     * 1부터 시작하는 순위입니다.
+     */
+    public int getRank() { return rank; }
+    public UUID getPlayerUUID() { return playerUUID; }
+    public int getCount() { return count; }
+
+    @Override
+    public String toString() {
+        return "LeaderboardEntry{" +
+                "rank=" + rank +
+                ", playerUUID=" + playerUUID +
+                ", count=" + count +
+                '}';
+    }
+}
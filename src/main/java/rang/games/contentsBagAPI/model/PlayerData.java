@@ -4,19 +4,30 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
 
 public class PlayerData {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
     private final UUID playerUUID;
     private final Map<UUID, Integer> itemCounts;
     private boolean dirty;
     private long lastUpdate;
+    private volatile long lastSaved;
+    private volatile long lastAccess;
+    private volatile long version;
+    private volatile long totalValue;
+    private volatile BagSnapshot snapshot;
 
     public PlayerData(UUID playerUUID) {
         this.playerUUID = playerUUID;
         this.itemCounts = new ConcurrentHashMap<>();
         this.dirty = false;
         this.lastUpdate = System.currentTimeMillis();
+        this.lastSaved = this.lastUpdate;
+        this.lastAccess = this.lastUpdate;
+        this.version = VERSIONS.incrementAndGet();
     }
 
     /**
@@ -37,11 +48,50 @@ public class PlayerData {
             } else {
                 itemCounts.remove(contentItemUUID);
             }
+            version = VERSIONS.incrementAndGet();
             dirty = true;
             lastUpdate = System.currentTimeMillis();
         }
     }
 
+    /**
+     * 특정 아이템의 수량을 설정하고 가방 총 가치를 개당 가격만큼 증감합니다.
+     * 총 가치가 long 범위를 넘으면 수량을 바꾸지 않고 ArithmeticException을 던집니다.
+     * @param unitPrice 최소 단위(0.01) 개당 가격
+     */
+    public void setItemCount(UUID contentItemUUID, int count, long unitPrice) {
+        int oldCount = getItemCount(contentItemUUID);
+        long value = Math.addExact(totalValue, Math.multiplyExact((long) count - oldCount, unitPrice));
+        // 변경 번호보다 먼저 써야 같은 번호의 스냅샷이 이전 가치를 담지 않습니다
+        totalValue = value;
+        setItemCount(contentItemUUID, count);
+    }
+
+    /**
+     * 현재 카탈로그 가격으로 가방 총 가치를 다시 계산합니다. 가격이 바뀌었을 때만 호출합니다.
+     * @return 총 가치가 바뀌었으면 true
+     */
+    public boolean recomputeTotalValue(ToLongFunction<UUID> unitPrices) {
+        long value = 0;
+        for (Map.Entry<UUID, Integer> entry : itemCounts.entrySet()) {
+            value = Math.addExact(value, Math.multiplyExact((long) entry.getValue(),
+                    unitPrices.applyAsLong(entry.getKey())));
+        }
+        if (value == totalValue) {
+            return false;
+        }
+        totalValue = value;
+        version = VERSIONS.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 가방 총 가치(최소 단위 0.01)를 반환합니다.
+     */
+    public long getTotalValue() {
+        return totalValue;
+    }
+
     /**
      * 플레이어 UUID를 반환합니다.
      */
@@ -61,6 +111,7 @@ public class PlayerData {
      */
     public void clearDirty() {
         dirty = false;
+        lastSaved = System.currentTimeMillis();
     }
 
     /**
@@ -71,10 +122,53 @@ public class PlayerData {
     }
 
     /**
-     * 모든 아이템 수량을 반환합니다.
+     * 마지막으로 DB와 동기화된(로드 또는 저장) 시간을 반환합니다.
+     */
+    public long getLastSaved() {
+        return lastSaved;
+    }
+
+    /**
+     * 가방을 사용 중인 것으로 표시합니다. 유휴 정리 대상 판단에 쓰입니다.
+     */
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * 마지막으로 조회되거나 변경된 시간을 반환합니다.
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * 모든 아이템 수량을 반환합니다. 가방이 바뀌지 않았다면 이전 스냅샷의 맵을 그대로 반환합니다.
      */
     public Map<UUID, Integer> getItemCounts() {
-        return Collections.unmodifiableMap(new HashMap<>(itemCounts));
+        return getSnapshot().getCounts();
+    }
+
+    /**
+     * 현재 가방의 불변 스냅샷을 반환합니다.
+     * 마지막 변경 이후 이미 만들어진 스냅샷이 있으면 복사 없이 재사용합니다.
+     */
+    public BagSnapshot getSnapshot() {
+        long currentVersion = version;
+        BagSnapshot current = snapshot;
+        if (current != null && current.getVersion() == currentVersion) {
+            return current;
+        }
+        BagSnapshot created = new BagSnapshot(playerUUID, currentVersion, new HashMap<>(itemCounts), totalValue);
+        snapshot = created;
+        return created;
+    }
+
+    /**
+     * 현재 변경 번호를 반환합니다. 스냅샷을 만들지 않고 변경 여부만 확인할 때 사용합니다.
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -97,6 +191,8 @@ public class PlayerData {
     public void clearAllItems() {
         if (!itemCounts.isEmpty()) {
             itemCounts.clear();
+            totalValue = 0;
+            version = VERSIONS.incrementAndGet();
             dirty = true;
             lastUpdate = System.currentTimeMillis();
         }
@@ -107,6 +203,7 @@ public class PlayerData {
         return "PlayerData{" +
                 "playerUUID=" + playerUUID +
                 ", itemCount=" + itemCounts.size() +
+                ", totalValue=" + totalValue +
                 ", dirty=" + dirty +
                 ", lastUpdate=" + lastUpdate +
                 '}';
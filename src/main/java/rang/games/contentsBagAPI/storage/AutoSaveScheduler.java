@@ -0,0 +1,144 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.config.ConfigManager;
+import rang.games.contentsBagAPI.log.TransactionLogger;
+import rang.games.contentsBagAPI.model.PlayerData;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 더티 플레이어를 저장 주기 전체에 분산해 저장하는 자동 저장 스케줄러입니다.
+ * 각 플레이어는 UUID 해시로 정해진 슬롯에서 저장되고, 동시 저장 수는
+ * 측정된 DB 지연에 따라 1 ~ max-in-flight 사이로 조절됩니다.
+ */
+public class AutoSaveScheduler {
+    private static final long TICK_MS = 1000;
+    private static final long RETRY_DELAY_MS = 30000;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final Storage storage;
+    private final TransactionLogger logger;
+    private final long intervalMs;
+    private final int maxInFlight;
+    private final long targetLatencyMs;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<UUID, Long> saving = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> retryAfter = new ConcurrentHashMap<>();
+    private volatile double averageLatencyMs;
+    private ScheduledFuture<?> task;
+
+    /**
+     * @param journaled 변경이 저널에 기록되는지 여부. 저널이 없으면 주기를 unjournaled-interval-seconds 이하로 줄입니다.
+     */
+    AutoSaveScheduler(Storage storage, ConfigManager config, TransactionLogger logger, boolean journaled) {
+        this.storage = storage;
+        this.logger = logger;
+        this.intervalMs = journaled
+                ? config.getAutoSaveIntervalMs()
+                : Math.min(config.getAutoSaveIntervalMs(), config.getUnjournaledAutoSaveIntervalMs());
+        this.maxInFlight = config.getAutoSaveMaxInFlight();
+        this.targetLatencyMs = config.getAutoSaveTargetLatencyMs();
+    }
+
+    void start(ScheduledExecutorService scheduler) {
+        task = scheduler.scheduleWithFixedDelay(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * 플레이어의 다음 저장 시각을 계산합니다.
+     * 마지막 저장으로부터 주기의 절반이 지난 뒤, UUID 해시로 정해진 첫 슬롯입니다.
+     */
+    long nextDueTime(PlayerData data) {
+        long earliest = data.getLastSaved() + intervalMs / 2;
+        long offset = Math.floorMod((long) data.getPlayerUUID().hashCode(), intervalMs);
+        long slot = earliest - Math.floorMod(earliest - offset, intervalMs);
+        return slot >= earliest ? slot : slot + intervalMs;
+    }
+
+    private void tick() {
+        try {
+            retryAfter.keySet().removeIf(playerUUID -> storage.getPlayerData(playerUUID) == null);
+            int available = currentLimit() - inFlight.get();
+            if (available <= 0) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            List<PlayerData> due = storage.getLoadedPlayerData().stream()
+                    .filter(PlayerData::isDirty)
+                    .filter(data -> !saving.containsKey(data.getPlayerUUID()))
+                    .filter(data -> retryAfter.getOrDefault(data.getPlayerUUID(), 0L) <= now)
+                    .filter(data -> nextDueTime(data) <= now)
+                    .sorted(Comparator.comparingLong(this::nextDueTime))
+                    .limit(available)
+                    .toList();
+
+            due.forEach(this::dispatch);
+        } catch (Exception e) {
+            logger.error("Autosave tick failed: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(PlayerData data) {
+        UUID playerUUID = data.getPlayerUUID();
+        long started = System.nanoTime();
+        if (saving.putIfAbsent(playerUUID, started) != null) {
+            return;
+        }
+        inFlight.incrementAndGet();
+
+        storage.savePlayerData(playerUUID).whenComplete((success, e) -> {
+            recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            inFlight.decrementAndGet();
+            saving.remove(playerUUID);
+
+            if (e != null || !Boolean.TRUE.equals(success)) {
+                retryAfter.put(playerUUID, System.currentTimeMillis() + RETRY_DELAY_MS);
+                logger.warn("Autosave failed for player {}, retrying in {}s",
+                        playerUUID, RETRY_DELAY_MS / 1000);
+            } else {
+                retryAfter.remove(playerUUID);
+            }
+        });
+    }
+
+    private void recordLatency(long latencyMs) {
+        double current = averageLatencyMs;
+        averageLatencyMs = current == 0
+                ? latencyMs
+                : current + LATENCY_SMOOTHING * (latencyMs - current);
+    }
+
+    /**
+     * 평균 지연이 목표 이하이면 max-in-flight, 초과하면 비례해서 줄인 동시 저장 한도입니다.
+     */
+    int currentLimit() {
+        double latency = averageLatencyMs;
+        if (latency <= targetLatencyMs) {
+            return maxInFlight;
+        }
+        return Math.max(1, (int) (maxInFlight * targetLatencyMs / latency));
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public double getAverageLatencyMs() {
+        return averageLatencyMs;
+    }
+}
@@ -0,0 +1,426 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.config.ConfigManager;
+import rang.games.contentsBagAPI.log.TransactionLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 모든 플레이어 가방을 백업/이전용 바이너리 파일로 내보내고 다시 가져옵니다.
+ *
+ * <pre>
+ * 파일:   [magic int][version short] 청크... [0 int][플레이어 수 long][행 수 long]
+ * 청크:   [플레이어 수 int][원본 길이 int][압축 길이 int][CRC32 int][deflate 데이터] (플레이어 수는 항상 1 이상)
+ * 원본:   플레이어마다 [UUID long×2][아이템 수 int] 그리고 아이템마다 [UUID long×2][수량 int]
+ * </pre>
+ *
+ * 내보내기는 player_data를 플레이어 UUID 키셋 페이지로 읽어 페이지마다 청크 하나를 쓰므로 메모리 사용량이 일정합니다.
+ * 청크를 쓸 때마다 진행 상황(.progress)을 남겨, 중단되면 마지막 완료 청크 뒤부터 이어서 씁니다.
+ * 가져오기는 청크마다 CRC를 확인하고 여러 스레드에서 각자 트랜잭션으로 반영하며, 끝난 청크 번호(.import-progress)를
+ * 기록해 다시 실행하면 남은 청크만 처리합니다. 청크 반영은 플레이어 단위로 덮어쓰므로 다시 실행해도 안전합니다.
+ */
+public class BagArchive {
+    static final int MAGIC = 0x43424241; // "CBBA"
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final int CHUNK_HEADER_SIZE = 16;
+
+    private final BagStore databaseHandler;
+    private final TransactionLogger logger;
+    private final int chunkPlayers;
+    private final int fetchSize;
+    private final int importThreads;
+    private final AtomicLong chunkSkipped = new AtomicLong();
+
+    public BagArchive(BagStore databaseHandler, ConfigManager config, TransactionLogger logger) {
+        this.databaseHandler = databaseHandler;
+        this.logger = logger;
+        this.chunkPlayers = config.getArchiveChunkPlayers();
+        this.fetchSize = config.getArchiveFetchSize();
+        this.importThreads = Math.min(config.getArchiveImportThreads(), databaseHandler.getWritePoolSize());
+    }
+
+    /**
+     * 내보내기/가져오기 결과입니다.
+     */
+    public static final class Result {
+        private final long players;
+        private final long rows;
+
+        Result(long players, long rows) {
+            this.players = players;
+            this.rows = rows;
+        }
+
+        public long getPlayers() { return players; }
+        public long getRows() { return rows; }
+    }
+
+    /**
+     * 저장된(DB 기준) 모든 가방을 파일로 내보냅니다 (동기 호출). 같은 파일의 중단된 내보내기가 있으면 이어서 씁니다.
+     */
+    public Result export(File file) throws IOException, SQLException {
+        File progressFile = new File(file.getPath() + ".progress");
+        String after = "";
+        long offset = 0;
+        long players = 0;
+        long rows = 0;
+        if (progressFile.exists() && file.exists()) {
+            try (BufferedReader in = new BufferedReader(new FileReader(progressFile, StandardCharsets.UTF_8))) {
+                after = in.readLine();
+                offset = Long.parseLong(in.readLine());
+                players = Long.parseLong(in.readLine());
+                rows = Long.parseLong(in.readLine());
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt export progress file " + progressFile.getName(), e);
+            }
+            logger.info("Resuming bag export into {} after player {}", file.getName(), after);
+        }
+
+        Deflater deflater = new Deflater();
+        try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (offset == 0) {
+                out.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION);
+                write(out, header.flip());
+                offset = HEADER_SIZE;
+            }
+            out.truncate(offset);
+            out.position(offset);
+
+            ChunkBuilder chunk = new ChunkBuilder();
+            while (true) {
+                chunk.reset();
+                String last = databaseHandler.streamPlayerDataPage(after, chunkPlayers, fetchSize, chunk::add);
+                if (last == null) {
+                    break;
+                }
+                chunk.finishPlayer();
+                after = last;
+                if (chunk.players == 0) {
+                    // 페이지의 행이 모두 잘못된 UUID였습니다. 플레이어 수 0은 끝 표시이므로 빈 청크는 쓰지 않습니다
+                    writeProgress(progressFile, after, out.position(), players, rows);
+                    continue;
+                }
+                write(out, chunk.encode(deflater));
+                out.force(false);
+                players += chunk.players;
+                rows += chunk.rows;
+                writeProgress(progressFile, after, out.position(), players, rows);
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(20).putInt(0).putLong(players).putLong(rows);
+            write(out, trailer.flip());
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.deleteIfExists(progressFile.toPath());
+        if (chunkSkipped.get() > 0) {
+            logger.warn("Skipped {} player_data rows with invalid UUIDs during export", chunkSkipped.getAndSet(0));
+        }
+        return new Result(players, rows);
+    }
+
+    /**
+     * 한 페이지의 행을 플레이어별로 모아 청크 원본을 만듭니다.
+     */
+    private final class ChunkBuilder {
+        private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        private final DataOutputStream data = new DataOutputStream(raw);
+        private final ByteArrayOutputStream items = new ByteArrayOutputStream();
+        private final DataOutputStream itemData = new DataOutputStream(items);
+        private String currentPlayer;
+        private int currentItems;
+        private int players;
+        private long rows;
+
+        void reset() {
+            raw.reset();
+            items.reset();
+            currentPlayer = null;
+            currentItems = 0;
+            players = 0;
+            rows = 0;
+        }
+
+        void add(String playerUUID, String product, int count) throws IOException {
+            if (!playerUUID.equals(currentPlayer)) {
+                finishPlayer();
+                currentPlayer = playerUUID;
+            }
+            UUID itemUUID;
+            try {
+                itemUUID = UUID.fromString(product);
+            } catch (IllegalArgumentException e) {
+                chunkSkipped.incrementAndGet();
+                return;
+            }
+            itemData.writeLong(itemUUID.getMostSignificantBits());
+            itemData.writeLong(itemUUID.getLeastSignificantBits());
+            itemData.writeInt(count);
+            currentItems++;
+            rows++;
+        }
+
+        void finishPlayer() throws IOException {
+            if (currentPlayer == null) {
+                return;
+            }
+            try {
+                UUID playerUUID = UUID.fromString(currentPlayer);
+                data.writeLong(playerUUID.getMostSignificantBits());
+                data.writeLong(playerUUID.getLeastSignificantBits());
+                data.writeInt(currentItems);
+                items.writeTo(data);
+                players++;
+            } catch (IllegalArgumentException e) {
+                chunkSkipped.addAndGet(currentItems);
+                rows -= currentItems;
+            }
+            items.reset();
+            currentPlayer = null;
+            currentItems = 0;
+        }
+
+        ByteBuffer encode(Deflater deflater) {
+            byte[] bytes = raw.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return ByteBuffer.allocate(CHUNK_HEADER_SIZE + compressed.size())
+                    .putInt(players)
+                    .putInt(bytes.length)
+                    .putInt(compressed.size())
+                    .putInt((int) crc.getValue())
+                    .put(compressed.toByteArray())
+                    .flip();
+        }
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void writeProgress(File progressFile, String after, long offset, long players, long rows)
+            throws IOException {
+        File tmp = new File(progressFile.getPath() + ".tmp");
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(tmp, StandardCharsets.UTF_8))) {
+            out.write(after + "\n" + offset + "\n" + players + "\n" + rows + "\n");
+        }
+        Files.move(tmp.toPath(), progressFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 파일의 가방을 DB로 가져옵니다 (동기 호출). 이전에 끝난 청크는 건너뜁니다.
+     * 다른 서버가 가지고 있는 플레이어도 server_status 기준으로 건너뜁니다.
+     * @param skip 가져오지 않을 플레이어 (예: 이 서버에 로드된 플레이어)
+     * @throws IOException 파일이 잘렸거나 체크섬이 맞지 않으면. 이미 반영된 청크는 기록되어 있어 다시 실행하면 이어집니다.
+     */
+    public Result importArchive(File file, Predicate<UUID> skip) throws IOException {
+        File progressFile = new File(file.getPath() + ".import-progress");
+        Set<Integer> completed = readCompleted(progressFile);
+
+        ExecutorService workers = Executors.newFixedThreadPool(importThreads,
+                Thread.ofPlatform().name("ContentsBag-Import-", 0).daemon(true).factory());
+        // 읽어 둔 청크 수를 제한해 파일 크기와 관계없이 메모리 사용량을 일정하게 유지합니다
+        Semaphore inFlight = new Semaphore(importThreads * 2);
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicLong importedPlayers = new AtomicLong();
+        AtomicLong importedRows = new AtomicLong();
+        AtomicLong skippedPlayers = new AtomicLong();
+        AtomicLong ownedElsewhere = new AtomicLong();
+        long chunkPlayerTotal = 0;
+        long expectedPlayers = -1;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+             BufferedWriter progress = new BufferedWriter(new FileWriter(progressFile, StandardCharsets.UTF_8, true))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a bag archive: " + file.getName());
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported bag archive version: " + version);
+            }
+
+            int index = 0;
+            while (true) {
+                int players = in.readInt();
+                if (players == 0) {
+                    expectedPlayers = in.readLong();
+                    in.readLong();
+                    break;
+                }
+                int rawLength = in.readInt();
+                int compressedLength = in.readInt();
+                int crc = in.readInt();
+                chunkPlayerTotal += players;
+                if (completed.contains(index)) {
+                    in.skipNBytes(compressedLength);
+                    index++;
+                    continue;
+                }
+                byte[] compressed = new byte[compressedLength];
+                in.readFully(compressed);
+
+                inFlight.acquireUninterruptibly();
+                if (failed.get()) {
+                    inFlight.release();
+                    break;
+                }
+                int chunkIndex = index++;
+                workers.execute(() -> {
+                    try {
+                        Map<UUID, Map<UUID, Integer>> bags = decodeChunk(compressed, rawLength, crc, players);
+                        int before = bags.size();
+                        bags.keySet().removeIf(skip);
+                        skippedPlayers.addAndGet(before - bags.size());
+                        ownedElsewhere.addAndGet(databaseHandler.importPlayerBags(bags));
+                        importedPlayers.addAndGet(bags.size());
+                        importedRows.addAndGet(bags.values().stream().mapToLong(Map::size).sum());
+                        synchronized (progress) {
+                            progress.write(chunkIndex + "\n");
+                            progress.flush();
+                        }
+                    } catch (Exception e) {
+                        failed.set(true);
+                        logger.error("Failed to import chunk {} of {}: {}", chunkIndex, file.getName(), e.getMessage());
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (EOFException e) {
+            failed.set(true);
+            logger.error("Bag archive {} is truncated", file.getName());
+        } finally {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failed.get()) {
+            throw new IOException("Import of " + file.getName() + " did not finish; run it again to resume");
+        }
+        if (expectedPlayers != chunkPlayerTotal) {
+            throw new IOException("Bag archive " + file.getName() + " player count mismatch: trailer "
+                    + expectedPlayers + ", chunks " + chunkPlayerTotal);
+        }
+        Files.deleteIfExists(progressFile.toPath());
+        if (skippedPlayers.get() > 0) {
+            logger.warn("Skipped {} players loaded on this server during import", skippedPlayers.get());
+        }
+        if (ownedElsewhere.get() > 0) {
+            logger.warn("Skipped {} players owned by another server during import - import on that server to restore them",
+                    ownedElsewhere.get());
+        }
+        return new Result(importedPlayers.get(), importedRows.get());
+    }
+
+    private static Set<Integer> readCompleted(File progressFile) throws IOException {
+        Set<Integer> completed = new HashSet<>();
+        if (!progressFile.exists()) {
+            return completed;
+        }
+        try (BufferedReader in = new BufferedReader(new FileReader(progressFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    completed.add(Integer.parseInt(line.trim()));
+                } catch (NumberFormatException e) {
+                    // 비정상 종료로 잘린 마지막 줄
+                }
+            }
+        }
+        return completed;
+    }
+
+    private static Map<UUID, Map<UUID, Integer>> decodeChunk(byte[] compressed, int rawLength, int crc, int players)
+            throws IOException {
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength) {
+                throw new IOException("Chunk is shorter than its header says");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt chunk: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 check = new CRC32();
+        check.update(raw);
+        if ((int) check.getValue() != crc) {
+            throw new IOException("Chunk checksum mismatch");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        Map<UUID, Map<UUID, Integer>> bags = new LinkedHashMap<>();
+        for (int p = 0; p < players; p++) {
+            UUID playerUUID = new UUID(buffer.getLong(), buffer.getLong());
+            int items = buffer.getInt();
+            Map<UUID, Integer> bag = new LinkedHashMap<>();
+            for (int i = 0; i < items; i++) {
+                bag.put(new UUID(buffer.getLong(), buffer.getLong()), buffer.getInt());
+            }
+            bags.put(playerUUID, bag);
+        }
+        return bags;
+    }
+}
@@ -0,0 +1,96 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.model.ContentItem;
+import rang.games.contentsBagAPI.model.LeaderboardEntry;
+import rang.games.contentsBagAPI.model.PlayerData;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Storage와 하위 구성 요소가 사용하는 DB 작업입니다. 기본 구현은 {@link DatabaseHandler}입니다.
+ * 각 메서드의 동작은 DatabaseHandler의 설명을 따릅니다.
+ */
+public interface BagStore extends AutoCloseable {
+    // 가방 상태 (server_status)
+    CompletableFuture<Boolean> updateDataStatus(UUID playerUUID, String status);
+
+    CompletableFuture<Boolean> beginTransfer(UUID playerUUID);
+
+    CompletableFuture<Boolean> isDataActiveAsync(UUID playerUUID);
+
+    boolean isDataActive(UUID playerUUID);
+
+    CompletableFuture<Optional<String>> getCurrentServer(UUID playerUUID);
+
+    CompletableFuture<Boolean> validateDataStatus(UUID playerUUID);
+
+    CompletableFuture<Boolean> updateServerInfo(UUID playerUUID, String fromServer, String toServer);
+
+    List<UUID> recoverStaleTransfers(long leaseMs, int batchSize);
+
+    // 가방 내용 (player_data)
+    CompletableFuture<Optional<PlayerData>> loadPlayerData(UUID playerUUID);
+
+    CompletableFuture<Map<UUID, PlayerData>> loadAndActivatePlayerData(Collection<UUID> playerUUIDs);
+
+    CompletableFuture<Map<UUID, Integer>> loadPlayerCounts(UUID playerUUID);
+
+    CompletableFuture<Boolean> savePlayerData(PlayerData data);
+
+    boolean savePlayerDataBatch(Collection<PlayerData> batch);
+
+    int replayJournalEntries(UUID playerUUID, Map<UUID, MutationJournal.Entry> entries);
+
+    String streamPlayerDataPage(String afterUUID, int limit, int fetchSize, PlayerDataRowConsumer consumer)
+            throws SQLException, IOException;
+
+    int importPlayerBags(Map<UUID, Map<UUID, Integer>> bags) throws SQLException;
+
+    // 카탈로그 (content_items)
+    CompletableFuture<Integer> streamItems(Consumer<ContentItem> consumer);
+
+    CompletableFuture<Integer> streamItemsByType(int type, Consumer<ContentItem> consumer);
+
+    // 아이템 집계
+    ItemAggregates getItemAggregates();
+
+    int flushAggregateDeltas();
+
+    int refreshItemAggregates();
+
+    int reconcileItemAggregates();
+
+    // 순위와 원장
+    List<LeaderboardEntry> loadTopHolders(UUID itemUUID, int limit);
+
+    List<LeaderboardEntry> loadStoredLeaderboard(UUID itemUUID);
+
+    boolean saveLeaderboard(UUID itemUUID, List<LeaderboardEntry> entries);
+
+    boolean insertLedgerEntries(String serverName, List<ItemLedger.Entry> entries);
+
+    // 유지보수
+    Connection getWriteConnection() throws SQLException;
+
+    int getWritePoolSize();
+
+    @Override
+    void close();
+
+    /**
+     * 내보내기에서 player_data 행 하나를 받는 콜백입니다.
+     */
+    @FunctionalInterface
+    interface PlayerDataRowConsumer {
+        void accept(String playerUUID, String product, int count) throws IOException;
+    }
+}
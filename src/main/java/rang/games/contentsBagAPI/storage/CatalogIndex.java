@@ -0,0 +1,131 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.model.ContentItem;
+import rang.games.contentsBagAPI.model.ItemPage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * 카탈로그 스냅샷의 정렬된 보조 인덱스입니다. 카탈로그를 (다시) 불러올 때마다 새로 만들며, 만든 뒤에는 바뀌지 않습니다.
+ *
+ * 가격 순(가격, UUID)과 슬롯 순(타입, 슬롯, UUID) 두 가지를 유지하므로 범위 조회는 O(log n + k)입니다.
+ * 커서는 페이지 마지막 항목의 키이며, 그 다음 항목부터 이어서 조회합니다.
+ */
+final class CatalogIndex {
+    static final CatalogIndex EMPTY = new CatalogIndex(new TreeMap<>(), new TreeMap<>());
+    private static final UUID MIN_UUID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID MAX_UUID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final NavigableMap<Key, ContentItem> byPrice;
+    private final NavigableMap<Key, ContentItem> bySlot;
+
+    private CatalogIndex(NavigableMap<Key, ContentItem> byPrice, NavigableMap<Key, ContentItem> bySlot) {
+        this.byPrice = byPrice;
+        this.bySlot = bySlot;
+    }
+
+    static CatalogIndex build(Collection<ContentItem> items) {
+        NavigableMap<Key, ContentItem> byPrice = new TreeMap<>();
+        NavigableMap<Key, ContentItem> bySlot = new TreeMap<>();
+        for (ContentItem item : items) {
+            byPrice.put(new Key(item.getPriceMinor(), 0, item.getUUID()), item);
+            bySlot.put(new Key(item.getType(), item.getSlot(), item.getUUID()), item);
+        }
+        return new CatalogIndex(Collections.unmodifiableNavigableMap(byPrice),
+                Collections.unmodifiableNavigableMap(bySlot));
+    }
+
+    ItemPage byPrice(long minPriceMinor, long maxPriceMinor, String cursor, int limit) {
+        if (minPriceMinor > maxPriceMinor) {
+            return new ItemPage(List.of(), null);
+        }
+        return page(byPrice.subMap(new Key(minPriceMinor, 0, MIN_UUID), true,
+                new Key(maxPriceMinor, 0, MAX_UUID), true), cursor, limit);
+    }
+
+    ItemPage bySlot(int type, int fromSlot, int toSlot, String cursor, int limit) {
+        if (fromSlot > toSlot) {
+            return new ItemPage(List.of(), null);
+        }
+        return page(bySlot.subMap(new Key(type, fromSlot, MIN_UUID), true,
+                new Key(type, toSlot, MAX_UUID), true), cursor, limit);
+    }
+
+    /**
+     * 타입의 아이템을 슬롯 순으로 반환합니다.
+     */
+    List<ContentItem> ofType(int type) {
+        return new ArrayList<>(bySlot.subMap(new Key(type, Long.MIN_VALUE, MIN_UUID), true,
+                new Key(type, Long.MAX_VALUE, MAX_UUID), true).values());
+    }
+
+    private static ItemPage page(NavigableMap<Key, ContentItem> range, String cursor, int limit) {
+        if (cursor != null) {
+            range = range.tailMap(Key.parse(cursor), false);
+        }
+        List<ContentItem> items = new ArrayList<>(Math.min(Math.max(limit, 0), 256));
+        Key last = null;
+        Iterator<Map.Entry<Key, ContentItem>> it = range.entrySet().iterator();
+        while (items.size() < limit && it.hasNext()) {
+            Map.Entry<Key, ContentItem> entry = it.next();
+            items.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new ItemPage(items, last != null && it.hasNext() ? last.toString() : null);
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final long primary;
+        private final long secondary;
+        private final UUID uuid;
+
+        Key(long primary, long secondary, UUID uuid) {
+            this.primary = primary;
+            this.secondary = secondary;
+            this.uuid = uuid;
+        }
+
+        /**
+         * @throws IllegalArgumentException 이 인덱스가 만든 커서가 아니면
+         */
+        static Key parse(String cursor) {
+            String[] parts = cursor.split(":", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid catalog cursor: " + cursor);
+            }
+            return new Key(Long.parseLong(parts[0]), Long.parseLong(parts[1]), UUID.fromString(parts[2]));
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Long.compare(primary, other.primary);
+            if (result == 0) {
+                result = Long.compare(secondary, other.secondary);
+            }
+            return result != 0 ? result : uuid.compareTo(other.uuid);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return uuid.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return primary + ":" + secondary + ":" + uuid;
+        }
+    }
+}
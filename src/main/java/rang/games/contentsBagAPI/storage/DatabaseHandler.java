@@ -3,17 +3,34 @@ package rang.games.contentsBagAPI.storage;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import rang.games.contentsBagAPI.config.ConfigManager;
+import rang.games.contentsBagAPI.config.PoolSettings;
 import rang.games.contentsBagAPI.log.TransactionLogger;
 import rang.games.contentsBagAPI.model.ContentItem;
+import rang.games.contentsBagAPI.model.ItemAggregate;
+import rang.games.contentsBagAPI.model.LeaderboardEntry;
 import rang.games.contentsBagAPI.model.PlayerData;
 
+import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-
-public class DatabaseHandler implements AutoCloseable {
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class DatabaseHandler implements BagStore {
+    private static final String ITEM_COLUMNS = "UUID, Itemstack, Price, Type, Slot";
+    private static final int AGGREGATE_FLUSH_BATCH = 1000;
     private final HikariDataSource dataSource;
+    private final HikariDataSource replicaDataSource;
+    private final HikariDataSource streamDataSource;
+    private final ExecutorService executor;
+    private final Map<UUID, Long> recentWrites = new ConcurrentHashMap<>();
+    private final ItemAggregates itemAggregates = new ItemAggregates();
     private final TransactionLogger logger;
     private final ConfigManager config;
 
@@ -21,29 +38,149 @@ public class DatabaseHandler implements AutoCloseable {
         this.config = config;
         this.logger = logger;
 
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s",
+        this.dataSource = createDataSource("ContentsBag-Primary",
                 config.getDatabaseHost(),
                 config.getDatabasePort(),
-                config.getDatabaseName()));
-        hikariConfig.setUsername(config.getDatabaseUser());
-        hikariConfig.setPassword(config.getDatabasePassword());
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(5);
+                config.getDatabaseName(),
+                config.getDatabaseUser(),
+                config.getDatabasePassword(),
+                config.getDatabasePoolSettings(),
+                false,
+                false);
+
+        if (config.isReplicaEnabled()) {
+            this.replicaDataSource = createDataSource("ContentsBag-Replica",
+                    config.getReplicaHost(),
+                    config.getReplicaPort(),
+                    config.getReplicaName(),
+                    config.getReplicaUser(),
+                    config.getReplicaPassword(),
+                    config.getReplicaPoolSettings(),
+                    true,
+                    false);
+            logger.info("Read replica enabled: {}:{}/{}",
+                    config.getReplicaHost(), config.getReplicaPort(), config.getReplicaName());
+        } else {
+            this.replicaDataSource = null;
+        }
+        this.streamDataSource = createStreamDataSource();
+
+        // JDBC 호출은 블로킹이므로 공용 풀 대신 풀 크기에 맞춘 전용 스레드에서 실행합니다
+        int threads = dataSource.getMaximumPoolSize()
+                + (replicaDataSource != null ? replicaDataSource.getMaximumPoolSize() : 0)
+                + streamDataSource.getMaximumPoolSize();
+        this.executor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("ContentsBag-DB-", 0).daemon(true).factory());
+        initializeTables();
+    }
+
+    private HikariDataSource createDataSource(String poolName, String host, int port, String database,
+                                              String user, String password, PoolSettings pool, boolean readOnly,
+                                              boolean cursorFetch) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(poolName);
+        hikariConfig.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s", host, port, database));
+        hikariConfig.setUsername(user);
+        hikariConfig.setPassword(password);
+        hikariConfig.setMaximumPoolSize(pool.getMaximumPoolSize());
+        hikariConfig.setMinimumIdle(pool.getMinimumIdle());
+        hikariConfig.setConnectionTimeout(pool.getConnectionTimeoutMs());
+        hikariConfig.setIdleTimeout(pool.getIdleTimeoutMs());
+        hikariConfig.setMaxLifetime(pool.getMaxLifetimeMs());
+        hikariConfig.setReadOnly(readOnly);
         hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
         hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
         hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        if (cursorFetch) {
+            // 모든 문장이 서버 측 prepared statement가 되므로 스트리밍 전용 풀에만 켭니다
+            hikariConfig.addDataSourceProperty("useCursorFetch", "true");
+        }
+        return new HikariDataSource(hikariConfig);
+    }
 
-        this.dataSource = new HikariDataSource(hikariConfig);
-        initializeTables();
+    /**
+     * 내보내기와 카탈로그 스트리밍 전용의 작은 풀입니다 (복제 DB 우선).
+     * 서버 커서로 fetch size만큼 나눠 받아, 결과 전체를 메모리에 올리지 않습니다.
+     */
+    private HikariDataSource createStreamDataSource() {
+        boolean replica = config.isReplicaEnabled();
+        PoolSettings base = replica ? config.getReplicaPoolSettings() : config.getDatabasePoolSettings();
+        PoolSettings pool = new PoolSettings(2, 0, base.getConnectionTimeoutMs(),
+                base.getIdleTimeoutMs(), base.getMaxLifetimeMs());
+        if (replica) {
+            return createDataSource("ContentsBag-Stream",
+                    config.getReplicaHost(),
+                    config.getReplicaPort(),
+                    config.getReplicaName(),
+                    config.getReplicaUser(),
+                    config.getReplicaPassword(),
+                    pool,
+                    true,
+                    true);
+        }
+        return createDataSource("ContentsBag-Stream",
+                config.getDatabaseHost(),
+                config.getDatabasePort(),
+                config.getDatabaseName(),
+                config.getDatabaseUser(),
+                config.getDatabasePassword(),
+                pool,
+                true,
+                true);
     }
 
+    /**
+     * 카탈로그, 타입 통계 등 플레이어 상태와 무관한 조회용 풀입니다.
+     * 복제본이 비활성화되어 있으면 기본 DB를 사용합니다.
+     */
+    private DataSource readDataSource() {
+        return replicaDataSource != null ? replicaDataSource : dataSource;
+    }
 
+    /**
+     * 플레이어 단위 조회용 풀입니다 (read-your-writes).
+     * 이 서버가 최근에 해당 플레이어를 기록했다면 복제 지연을 피하기 위해 기본 DB에서 읽습니다.
+     * 로드/상태 확인처럼 서버 간 일관성이 필요한 조회는 항상 기본 DB를 사용하며 이 메소드를 거치지 않습니다.
+     */
+    private DataSource playerReadDataSource(UUID playerUUID) {
+        if (replicaDataSource == null) {
+            return dataSource;
+        }
+        Long writtenAt = recentWrites.get(playerUUID);
+        if (writtenAt == null) {
+            return replicaDataSource;
+        }
+        if (System.currentTimeMillis() - writtenAt < config.getReplicaReadYourWritesMs()) {
+            return dataSource;
+        }
+        recentWrites.remove(playerUUID, writtenAt);
+        return replicaDataSource;
+    }
+
+    private void markWritten(UUID playerUUID) {
+        if (replicaDataSource == null || playerUUID == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        recentWrites.put(playerUUID, now);
+        if (recentWrites.size() > 10000) {
+            long window = config.getReplicaReadYourWritesMs();
+            recentWrites.values().removeIf(writtenAt -> now - writtenAt >= window);
+        }
+    }
+
+    public boolean isReplicaEnabled() {
+        return replicaDataSource != null;
+    }
+
+    @Override
     public CompletableFuture<Boolean> updateDataStatus(UUID playerUUID, String status) {
         return CompletableFuture.supplyAsync(() -> {
             String sql = """
             UPDATE server_status 
-            SET data_status = ?
+            SET data_status = ?,
+            last_update = ?,
+            transfer_status = CASE WHEN ? = 'ACTIVE' THEN FALSE ELSE transfer_status END
             WHERE player_uuid = ?
             """;
 
@@ -51,16 +188,56 @@ public class DatabaseHandler implements AutoCloseable {
                  PreparedStatement stmt = conn.prepareStatement(sql)) {
 
                 stmt.setString(1, status);
-                stmt.setString(2, playerUUID.toString());
+                stmt.setLong(2, System.currentTimeMillis());
+                stmt.setString(3, status);
+                stmt.setString(4, playerUUID.toString());
 
                 int updated = stmt.executeUpdate();
+                markWritten(playerUUID);
                 return updated > 0;
             } catch (Exception e) {
                 logger.error("Failed to update data status for player {}: {}", playerUUID, e.getMessage());
                 return false;
             }
-        });
+        }, executor);
+    }
+    /**
+     * 서버 이동을 시작하며 가방을 READONLY로 바꾸고 transfer_status를 켭니다.
+     * 이동 복구 작업은 transfer_status가 켜진 READONLY 행만 되살립니다.
+     */
+    @Override
+    public CompletableFuture<Boolean> beginTransfer(UUID playerUUID) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sql = """
+            UPDATE server_status
+            SET data_status = 'READONLY',
+            transfer_status = TRUE,
+            last_update = ?
+            WHERE player_uuid = ?
+            """;
+
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setLong(1, System.currentTimeMillis());
+                stmt.setString(2, playerUUID.toString());
+
+                int updated = stmt.executeUpdate();
+                markWritten(playerUUID);
+                return updated > 0;
+            } catch (Exception e) {
+                logger.error("Failed to mark transfer start for player {}: {}", playerUUID, e.getMessage());
+                return false;
+            }
+        }, executor);
     }
+
+    @Override
+    public CompletableFuture<Boolean> isDataActiveAsync(UUID playerUUID) {
+        return CompletableFuture.supplyAsync(() -> isDataActive(playerUUID), executor);
+    }
+
+    @Override
     public boolean isDataActive(UUID playerUUID) {
         String sql = "SELECT data_status FROM server_status WHERE player_uuid = ?";
         try (Connection conn = dataSource.getConnection();
@@ -80,6 +257,29 @@ public class DatabaseHandler implements AutoCloseable {
         }
     }
 
+    /**
+     * server_status에 기록된 플레이어의 현재 서버를 조회합니다.
+     * @return 현재 서버 (기록이 없으면 빈 값)
+     */
+    @Override
+    public CompletableFuture<Optional<String>> getCurrentServer(UUID playerUUID) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sql = "SELECT current_server FROM server_status WHERE player_uuid = ?";
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setString(1, playerUUID.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? Optional.ofNullable(rs.getString("current_server")) : Optional.<String>empty();
+                }
+            } catch (Exception e) {
+                logger.error("Failed to load current server for player {}: {}", playerUUID, e.getMessage());
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    @Override
     public CompletableFuture<Boolean> validateDataStatus(UUID playerUUID) {
         return CompletableFuture.supplyAsync(() -> {
             String sql = """
@@ -100,7 +300,7 @@ public class DatabaseHandler implements AutoCloseable {
                         playerUUID, e.getMessage());
                 return false;
             }
-        });
+        }, executor);
     }
     private void initializeTables() {
         String createItemsTable = """
@@ -125,7 +325,8 @@ public class DatabaseHandler implements AutoCloseable {
                 `Lastupdate` BIGINT NULL,
                 PRIMARY KEY (`UUID`, `Product`),
                 INDEX `UUID` (`UUID`),
-                INDEX `Product` (`Product`)
+                INDEX `Product` (`Product`),
+                INDEX `Product_Count` (`Product`, `Count`)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
             """;
 
@@ -137,9 +338,78 @@ public class DatabaseHandler implements AutoCloseable {
                 `to_server` VARCHAR(64) NOT NULL,
                 `timestamp` BIGINT NOT NULL,
                 `status` VARCHAR(20) NOT NULL,
-                PRIMARY KEY (`id`),
+                PRIMARY KEY (`id`, `timestamp`),
                 INDEX `idx_player_uuid` (`player_uuid`),
                 INDEX `idx_timestamp` (`timestamp`)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+            PARTITION BY RANGE (`timestamp`) (
+                PARTITION %s VALUES LESS THAN (%d),
+                PARTITION p_future VALUES LESS THAN MAXVALUE
+            );
+            """.formatted(TrackingMaintenance.partitionName(TrackingMaintenance.today()),
+                TrackingMaintenance.dayEnd(TrackingMaintenance.today()));
+
+        String createServerTrackingArchiveTable = """
+            CREATE TABLE IF NOT EXISTS `server_tracking_archive` (
+                `day` DATE NOT NULL,
+                `status` VARCHAR(32) NOT NULL,
+                `from_server` VARCHAR(64) NOT NULL,
+                `to_server` VARCHAR(64) NOT NULL,
+                `events` BIGINT NOT NULL,
+                `players` BIGINT NOT NULL,
+                PRIMARY KEY (`day`, `status`, `from_server`, `to_server`)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+            """;
+
+        String createItemAggregatesTable = """
+            CREATE TABLE IF NOT EXISTS `item_aggregates` (
+                `Product` CHAR(38) NOT NULL,
+                `Total` BIGINT NOT NULL DEFAULT 0,
+                `Holders` BIGINT NOT NULL DEFAULT 0,
+                `Lastupdate` BIGINT NOT NULL,
+                PRIMARY KEY (`Product`)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+            """;
+
+        String createItemAggregateDeltasTable = """
+            CREATE TABLE IF NOT EXISTS `item_aggregate_deltas` (
+                `id` BIGINT AUTO_INCREMENT,
+                `Product` CHAR(38) NOT NULL,
+                `Total` BIGINT NOT NULL,
+                `Holders` BIGINT NOT NULL,
+                `Lastupdate` BIGINT NOT NULL,
+                PRIMARY KEY (`id`),
+                INDEX `idx_product` (`Product`, `id`)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+            """;
+
+        String createItemLeaderboardsTable = """
+            CREATE TABLE IF NOT EXISTS `item_leaderboards` (
+                `Product` CHAR(38) NOT NULL,
+                `Position` INT NOT NULL,
+                `UUID` CHAR(38) NOT NULL,
+                `Count` INT NOT NULL,
+                `Lastupdate` BIGINT NOT NULL,
+                PRIMARY KEY (`Product`, `Position`)
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+            """;
+
+        String createItemLedgerTable = """
+            CREATE TABLE IF NOT EXISTS `item_ledger` (
+                `id` BIGINT AUTO_INCREMENT,
+                `server` VARCHAR(64) NOT NULL,
+                `boot_id` BIGINT NOT NULL,
+                `seq` BIGINT NOT NULL,
+                `timestamp` BIGINT NOT NULL,
+                `player_uuid` CHAR(38) NOT NULL,
+                `item_uuid` CHAR(38) NOT NULL,
+                `old_count` INT NOT NULL,
+                `new_count` INT NOT NULL,
+                `reason` TEXT NOT NULL,
+                PRIMARY KEY (`id`),
+                UNIQUE KEY `uk_event` (`server`, `boot_id`, `seq`),
+                INDEX `idx_player_time` (`player_uuid`, `timestamp`),
+                INDEX `idx_item_time` (`item_uuid`, `timestamp`)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
             """;
 
@@ -151,7 +421,8 @@ public class DatabaseHandler implements AutoCloseable {
                 `last_update` BIGINT NOT NULL,
                 `transfer_status` BOOLEAN DEFAULT FALSE,
                 `data_status` ENUM('ACTIVE', 'SUSPENDED', 'READONLY') DEFAULT 'ACTIVE',
-                PRIMARY KEY (`player_uuid`)
+                PRIMARY KEY (`player_uuid`),
+                INDEX `idx_status_update` (`data_status`, `last_update`)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
             """;
 
@@ -160,41 +431,66 @@ public class DatabaseHandler implements AutoCloseable {
             stmt.execute(createItemsTable);
             stmt.execute(createPlayerDataTable);
             stmt.execute(createServerTrackingTable);
+            stmt.execute(createServerTrackingArchiveTable);
+            stmt.execute(createItemAggregatesTable);
+            stmt.execute(createItemAggregateDeltasTable);
+            stmt.execute(createItemLeaderboardsTable);
+            if (config.isLedgerEnabled()) {
+                stmt.execute(createItemLedgerTable);
+            }
             stmt.execute(createServerStatusTable);
+            ensureIndex(conn, "player_data", "Product_Count", "`Product`, `Count`");
+            ensureIndex(conn, "server_status", "idx_status_update", "`data_status`, `last_update`");
         } catch (Exception e) {
             logger.error("Failed to initialize database tables: {}", e.getMessage());
             throw new RuntimeException("Database initialization failed", e);
         }
     }
 
-    public CompletableFuture<Map<UUID, ContentItem>> loadItems() {
-        return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT * FROM items WHERE Access = 1 ORDER BY Type ASC, Slot ASC";
-            Map<UUID, ContentItem> items = new HashMap<>();
+    /**
+     * 이전 버전에서 만들어진 테이블에 인덱스가 없으면 추가합니다.
+     */
+    private void ensureIndex(Connection conn, String table, String index, String columns) throws SQLException {
+        String sql = """
+            SELECT 1 FROM information_schema.statistics
+            WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+            LIMIT 1
+            """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            stmt.setString(2, index);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE `" + table + "` ADD INDEX `" + index + "` (" + columns + ")");
+        }
+        logger.info("Added index {} to {}", index, table);
+    }
 
-            try (Connection conn = dataSource.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sql);
-                 ResultSet rs = stmt.executeQuery()) {
+    /**
+     * 판매 중인 모든 아이템을 Type, Slot 순으로 읽으며 한 행씩 consumer에 넘깁니다 (복제 DB 우선).
+     * @return 넘긴 아이템 수
+     */
+    @Override
+    public CompletableFuture<Integer> streamItems(Consumer<ContentItem> consumer) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sql = "SELECT " + ITEM_COLUMNS + " FROM items WHERE Access = 1 ORDER BY Type ASC, Slot ASC";
 
-                while (rs.next()) {
-                    UUID uuid = UUID.fromString(rs.getString("UUID"));
-                    ContentItem item = new ContentItem(
-                            uuid,
-                            rs.getString("Itemstack"),
-                            rs.getDouble("Price"),
-                            rs.getInt("Type"),
-                            rs.getInt("Slot")
-                    );
-                    items.put(uuid, item);
-                }
+            try (Connection conn = streamDataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                return streamItems(stmt, consumer);
             } catch (Exception e) {
                 logger.error("Failed to load items: {}", e.getMessage());
                 throw new CompletionException(e);
             }
-
-            return items;
-        });
+        }, executor);
     }
+
+    @Override
     public CompletableFuture<Optional<PlayerData>> loadPlayerData(UUID playerUUID) {
         return CompletableFuture.supplyAsync(() -> {
             String sql = "SELECT Product, Count FROM player_data WHERE UUID = ?";
@@ -250,68 +546,975 @@ public class DatabaseHandler implements AutoCloseable {
                 logger.error("Failed to load player data for {}: {}", playerUUID, e.getMessage());
                 return Optional.empty();
             }
-        });
+        }, executor);
     }
-    public CompletableFuture<Boolean> savePlayerData(PlayerData data) {
+    /**
+     * 여러 플레이어의 상태와 아이템을 IN 조회로 한 번에 불러오고, 기존 플레이어의 상태를 한 문장으로 ACTIVE로 바꿉니다.
+     * 가방을 활성화한 이 서버가 current_server가 되므로, 실패한 이동의 대상 서버가 소유자로 남지 않습니다.
+     * 상태 행이 없는 플레이어는 새 플레이어로 초기화합니다. 전체가 하나의 트랜잭션이지만,
+     * 새 플레이어마다 savepoint를 두어 초기화에 실패한 플레이어만 결과에서 빠집니다.
+     * @return 플레이어별 데이터 (빠진 플레이어는 로드 실패, 조회 자체가 실패하면 예외로 완료)
+     */
+    @Override
+    public CompletableFuture<Map<UUID, PlayerData>> loadAndActivatePlayerData(Collection<UUID> playerUUIDs) {
         return CompletableFuture.supplyAsync(() -> {
-            String selectSql = "SELECT Product FROM player_data WHERE UUID = ?";
-            Set<UUID> existingItems = new HashSet<>();
+            String placeholders = String.join(",", Collections.nCopies(playerUUIDs.size(), "?"));
+            String statusSql = "SELECT player_uuid FROM server_status WHERE player_uuid IN (" + placeholders + ")";
+            String dataSql = "SELECT UUID, Product, Count FROM player_data WHERE UUID IN (" + placeholders + ")";
 
+            Map<UUID, PlayerData> loaded = new HashMap<>();
             try (Connection conn = dataSource.getConnection()) {
                 conn.setAutoCommit(false);
+                try {
+                    Set<UUID> existing = new HashSet<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(statusSql)) {
+                        bindUUIDs(stmt, 1, playerUUIDs);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                existing.add(UUID.fromString(rs.getString("player_uuid")));
+                            }
+                        }
+                    }
 
-                try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                    selectStmt.setString(1, data.getPlayerUUID().toString());
-                    ResultSet rs = selectStmt.executeQuery();
-                    while (rs.next()) {
-                        existingItems.add(UUID.fromString(rs.getString("Product")));
+                    for (UUID playerUUID : playerUUIDs) {
+                        if (existing.contains(playerUUID)) {
+                            loaded.put(playerUUID, new PlayerData(playerUUID));
+                        } else {
+                            Savepoint savepoint = conn.setSavepoint();
+                            try {
+                                initializeNewPlayer(conn, playerUUID).ifPresent(data -> loaded.put(playerUUID, data));
+                                conn.releaseSavepoint(savepoint);
+                            } catch (SQLException e) {
+                                conn.rollback(savepoint);
+                                logger.error("Failed to initialize new player {} in batch: {}", playerUUID, e.getMessage());
+                            }
+                        }
+                    }
+
+                    if (!existing.isEmpty()) {
+                        try (PreparedStatement stmt = conn.prepareStatement(dataSql)) {
+                            bindUUIDs(stmt, 1, playerUUIDs);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    String productUUIDString = rs.getString("Product");
+                                    if (productUUIDString == null || productUUIDString.equals("<none>")) {
+                                        logger.warn("Invalid product UUID found for player {}: {}",
+                                                rs.getString("UUID"), productUUIDString);
+                                        continue;
+                                    }
+                                    try {
+                                        PlayerData data = loaded.get(UUID.fromString(rs.getString("UUID")));
+                                        if (data != null) {
+                                            data.setItemCount(UUID.fromString(productUUIDString), rs.getInt("Count"));
+                                        }
+                                    } catch (IllegalArgumentException e) {
+                                        logger.error("Invalid UUID format in player_data row: {}", productUUIDString);
+                                    }
+                                }
+                            }
+                        }
+
+                        // last_server는 current_server를 바꾸기 전 값으로 먼저 계산됩니다
+                        String activateSql = """
+                        UPDATE server_status
+                        SET data_status = 'ACTIVE', transfer_status = FALSE,
+                        last_server = IF(current_server = ?, last_server, current_server),
+                        current_server = ?,
+                        last_update = ?
+                        WHERE player_uuid IN (%s)
+                        """.formatted(String.join(",", Collections.nCopies(existing.size(), "?")));
+                        try (PreparedStatement stmt = conn.prepareStatement(activateSql)) {
+                            stmt.setString(1, config.getServerName());
+                            stmt.setString(2, config.getServerName());
+                            stmt.setLong(3, System.currentTimeMillis());
+                            bindUUIDs(stmt, 4, existing);
+                            stmt.executeUpdate();
+                        }
                     }
+                    conn.commit();
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
                 }
+            } catch (Exception e) {
+                logger.error("Failed to load batch of {} players: {}", playerUUIDs.size(), e.getMessage());
+                throw new CompletionException(e);
+            }
 
-                String upsertSql = """
-                INSERT INTO player_data (UUID, Product, Count, Lastupdate)
-                VALUES (?, ?, ?, ?)
-                ON DUPLICATE KEY UPDATE
-                Count = VALUES(Count),
-                Lastupdate = VALUES(Lastupdate)
-                """;
+            loaded.values().forEach(data -> {
+                data.clearDirty();
+                markWritten(data.getPlayerUUID());
+            });
+            return loaded;
+        }, executor);
+    }
+
+    private static void bindUUIDs(PreparedStatement stmt, int from, Collection<UUID> uuids) throws SQLException {
+        int index = from;
+        for (UUID uuid : uuids) {
+            stmt.setString(index++, uuid.toString());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> savePlayerData(PlayerData data) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                Map<UUID, long[]> deltas = writePlayerData(conn, List.of(data));
+                conn.commit();
+                markWritten(data.getPlayerUUID());
+                itemAggregates.applyDeltas(deltas);
+                return true;
+            } catch (Exception e) {
+                logger.error("Failed to save player data for {}: {}",
+                        data.getPlayerUUID(), e.getMessage());
+                return false;
+            }
+        }, executor);
+    }
 
-                try (PreparedStatement upsertStmt = conn.prepareStatement(upsertSql)) {
-                    Map<UUID, Integer> currentCounts = data.getItemCounts();
-                    long updateTime = System.currentTimeMillis();
-
-                    for (Map.Entry<UUID, Integer> entry : currentCounts.entrySet()) {
-                        upsertStmt.setString(1, data.getPlayerUUID().toString());
-                        upsertStmt.setString(2, entry.getKey().toString());
-                        upsertStmt.setInt(3, entry.getValue());
-                        upsertStmt.setLong(4, updateTime);
-                        upsertStmt.addBatch();
-                        existingItems.remove(entry.getKey());
+    /**
+     * 여러 플레이어의 데이터를 하나의 트랜잭션으로 저장합니다 (동기 호출).
+     * 종료 시 일괄 저장처럼 호출 측이 스레드와 마감 시간을 직접 관리할 때 사용합니다.
+     */
+    @Override
+    public boolean savePlayerDataBatch(Collection<PlayerData> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            Map<UUID, long[]> deltas;
+            try {
+                deltas = writePlayerData(conn, batch);
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+            batch.forEach(data -> markWritten(data.getPlayerUUID()));
+            itemAggregates.applyDeltas(deltas);
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to save batch of {} players: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 플레이어 데이터를 쓰고, 기존 행과 비교한 아이템별 델타를 같은 트랜잭션에서 item_aggregate_deltas에 추가합니다.
+     * @return 커밋 후 메모리 집계에 반영할 델타
+     */
+    private Map<UUID, long[]> writePlayerData(Connection conn, Collection<PlayerData> batch) throws SQLException {
+        Map<UUID, Map<UUID, Integer>> existingItems = new HashMap<>();
+        String selectSql = "SELECT UUID, Product, Count FROM player_data WHERE UUID IN ("
+                + String.join(",", Collections.nCopies(batch.size(), "?")) + ") FOR UPDATE";
+
+        try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
+            int index = 1;
+            for (PlayerData data : batch) {
+                selectStmt.setString(index++, data.getPlayerUUID().toString());
+            }
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        existingItems.computeIfAbsent(UUID.fromString(rs.getString("UUID")), k -> new HashMap<>())
+                                .put(UUID.fromString(rs.getString("Product")), rs.getInt("Count"));
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("Skipping invalid player_data row: {} / {}",
+                                rs.getString("UUID"), rs.getString("Product"));
                     }
+                }
+            }
+        }
 
-                    if (!existingItems.isEmpty()) {
-                        String deleteSql = "DELETE FROM player_data WHERE UUID = ? AND Product = ?";
-                        try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
-                            for (UUID itemUUID : existingItems) {
-                                deleteStmt.setString(1, data.getPlayerUUID().toString());
-                                deleteStmt.setString(2, itemUUID.toString());
-                                deleteStmt.addBatch();
+        String upsertSql = """
+        INSERT INTO player_data (UUID, Product, Count, Lastupdate)
+        VALUES (?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+        Count = VALUES(Count),
+        Lastupdate = VALUES(Lastupdate)
+        """;
+        String deleteSql = "DELETE FROM player_data WHERE UUID = ? AND Product = ?";
+
+        Map<UUID, long[]> deltas = new TreeMap<>();
+        long updateTime = System.currentTimeMillis();
+        try (PreparedStatement upsertStmt = conn.prepareStatement(upsertSql);
+             PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
+            boolean hasDeletes = false;
+
+            for (PlayerData data : batch) {
+                String playerUUIDString = data.getPlayerUUID().toString();
+                Map<UUID, Integer> staleItems = existingItems.getOrDefault(data.getPlayerUUID(), new HashMap<>());
+
+                for (Map.Entry<UUID, Integer> entry : data.getItemCounts().entrySet()) {
+                    upsertStmt.setString(1, playerUUIDString);
+                    upsertStmt.setString(2, entry.getKey().toString());
+                    upsertStmt.setInt(3, entry.getValue());
+                    upsertStmt.setLong(4, updateTime);
+                    upsertStmt.addBatch();
+                    addDelta(deltas, entry.getKey(), staleItems.getOrDefault(entry.getKey(), 0), entry.getValue());
+                    staleItems.remove(entry.getKey());
+                }
+
+                for (Map.Entry<UUID, Integer> stale : staleItems.entrySet()) {
+                    deleteStmt.setString(1, playerUUIDString);
+                    deleteStmt.setString(2, stale.getKey().toString());
+                    deleteStmt.addBatch();
+                    addDelta(deltas, stale.getKey(), stale.getValue(), 0);
+                    hasDeletes = true;
+                }
+            }
+
+            if (hasDeletes) {
+                deleteStmt.executeBatch();
+            }
+            upsertStmt.executeBatch();
+        }
+
+        insertAggregateDeltas(conn, deltas, updateTime);
+        return deltas;
+    }
+
+    private static void addDelta(Map<UUID, long[]> deltas, UUID itemUUID, int oldCount, int newCount) {
+        if (oldCount == newCount) {
+            return;
+        }
+        long[] delta = deltas.computeIfAbsent(itemUUID, k -> new long[2]);
+        delta[0] += newCount - oldCount;
+        delta[1] += (newCount > 0 ? 1 : 0) - (oldCount > 0 ? 1 : 0);
+    }
+
+    /**
+     * 저장의 델타를 item_aggregate_deltas에 행으로 추가합니다 (호출 측 트랜잭션 안에서).
+     * 추가만 하므로 모든 서버의 저장이 같은 인기 아이템 행을 잠그지 않으며, item_aggregates에는
+     * flushAggregateDeltas가 모아서 더합니다. 저장과 함께 커밋되므로 재집계와 어긋나지 않습니다.
+     */
+    private static void insertAggregateDeltas(Connection conn, Map<UUID, long[]> deltas, long updateTime)
+            throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO item_aggregate_deltas (Product, Total, Holders, Lastupdate) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<UUID, long[]> entry : deltas.entrySet()) {
+                stmt.setString(1, entry.getKey().toString());
+                stmt.setLong(2, entry.getValue()[0]);
+                stmt.setLong(3, entry.getValue()[1]);
+                stmt.setLong(4, updateTime);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * item_aggregate_deltas에 쌓인 델타를 아이템별로 합쳐 item_aggregates에 더하고 그 행을 지웁니다 (동기 호출).
+     * 한 번에 AGGREGATE_FLUSH_BATCH개씩 짧은 트랜잭션으로 처리하며, 여러 서버 중 네임드 락을 얻은 한 서버만 실행합니다.
+     * 실패하면 행이 그대로 남아 다음 주기에 다시 처리됩니다.
+     * @return 반영한 델타 행 수, 락을 얻지 못했거나 실패하면 -1
+     */
+    @Override
+    public int flushAggregateDeltas() {
+        String selectSql = "SELECT id, Product, Total, Holders FROM item_aggregate_deltas ORDER BY id LIMIT ? FOR UPDATE";
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement lock = conn.prepareStatement("SELECT GET_LOCK('contentsbag_item_aggregate_deltas', 0)");
+                 ResultSet rs = lock.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    return -1;
+                }
+            }
+            try {
+                int flushed = 0;
+                // 끝 범위에 갭 락을 걸면 저장의 델타 추가가 막히므로 읽은 행만 잠급니다
+                conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                conn.setAutoCommit(false);
+                while (true) {
+                    List<Long> ids = new ArrayList<>();
+                    Map<UUID, long[]> deltas = new TreeMap<>();
+                    try {
+                        try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                            stmt.setInt(1, AGGREGATE_FLUSH_BATCH);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    ids.add(rs.getLong("id"));
+                                    try {
+                                        long[] delta = deltas.computeIfAbsent(UUID.fromString(rs.getString("Product")),
+                                                k -> new long[2]);
+                                        delta[0] += rs.getLong("Total");
+                                        delta[1] += rs.getLong("Holders");
+                                    } catch (IllegalArgumentException e) {
+                                        logger.warn("Dropping invalid item_aggregate_deltas row: {}", rs.getString("Product"));
+                                    }
+                                }
                             }
-                            deleteStmt.executeBatch();
+                        }
+                        if (ids.isEmpty()) {
+                            conn.commit();
+                            break;
+                        }
+                        deltas.values().removeIf(delta -> delta[0] == 0 && delta[1] == 0);
+                        writeAggregateDeltas(conn, deltas, System.currentTimeMillis());
+                        // 커밋 전에 더 작은 id가 끼어들 수 있으므로 범위가 아니라 읽은 행만 지웁니다
+                        String deleteSql = "DELETE FROM item_aggregate_deltas WHERE id IN ("
+                                + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+                        try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+                            int index = 1;
+                            for (long id : ids) {
+                                stmt.setLong(index++, id);
+                            }
+                            stmt.executeUpdate();
+                        }
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                    flushed += ids.size();
+                    if (ids.size() < AGGREGATE_FLUSH_BATCH) {
+                        break;
+                    }
+                }
+                conn.setAutoCommit(true);
+                return flushed;
+            } finally {
+                try (PreparedStatement release = conn.prepareStatement("SELECT RELEASE_LOCK('contentsbag_item_aggregate_deltas')")) {
+                    release.executeQuery().close();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to flush item aggregate deltas: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 델타를 item_aggregates에 더합니다. 서버 간 교착을 피하려고 항상 아이템 UUID 순서로 갱신합니다.
+     */
+    private void writeAggregateDeltas(Connection conn, Map<UUID, long[]> deltas, long updateTime) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String sql = """
+        INSERT INTO item_aggregates (Product, Total, Holders, Lastupdate)
+        VALUES (?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+        Total = Total + VALUES(Total),
+        Holders = Holders + VALUES(Holders),
+        Lastupdate = VALUES(Lastupdate)
+        """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<UUID, long[]> entry : deltas.entrySet()) {
+                stmt.setString(1, entry.getKey().toString());
+                stmt.setLong(2, entry.getValue()[0]);
+                stmt.setLong(3, entry.getValue()[1]);
+                stmt.setLong(4, updateTime);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * 저널에 남아 있던 미반영 변경을 DB에 재생합니다 (동기 호출).
+     * server_status를 잠근 뒤, 다른 서버가 플레이어를 가지고 있으면 재생하지 않고,
+     * 저널 기록 이후에 상태가 바뀐 변경은 건너뜁니다.
+     * @return 적용한 변경 수, 실패 시 -1
+     */
+    @Override
+    public int replayJournalEntries(UUID playerUUID, Map<UUID, MutationJournal.Entry> entries) {
+        String statusSql = "SELECT current_server, last_update FROM server_status WHERE player_uuid = ? FOR UPDATE";
+        String existingSql = "SELECT Product, Count FROM player_data WHERE UUID = ? FOR UPDATE";
+        String upsertSql = """
+        INSERT INTO player_data (UUID, Product, Count, Lastupdate)
+        VALUES (?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+        Count = VALUES(Count),
+        Lastupdate = VALUES(Lastupdate)
+        """;
+        String deleteSql = "DELETE FROM player_data WHERE UUID = ? AND Product = ?";
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long lastUpdate = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(statusSql)) {
+                    stmt.setString(1, playerUUID.toString());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            String currentServer = rs.getString("current_server");
+                            if (!config.getServerName().equalsIgnoreCase(currentServer)) {
+                                logger.warn("Skipping journal replay for player {} - data now owned by {}",
+                                        playerUUID, currentServer);
+                                conn.rollback();
+                                return 0;
+                            }
+                            lastUpdate = rs.getLong("last_update");
+                        }
+                    }
+                }
+
+                Map<UUID, Integer> existingCounts = new HashMap<>();
+                try (PreparedStatement stmt = conn.prepareStatement(existingSql)) {
+                    stmt.setString(1, playerUUID.toString());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            existingCounts.put(UUID.fromString(rs.getString("Product")), rs.getInt("Count"));
                         }
                     }
+                }
 
+                int applied = 0;
+                long now = System.currentTimeMillis();
+                Map<UUID, long[]> deltas = new TreeMap<>();
+                try (PreparedStatement upsertStmt = conn.prepareStatement(upsertSql);
+                     PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
+                    for (Map.Entry<UUID, MutationJournal.Entry> entry : entries.entrySet()) {
+                        MutationJournal.Entry change = entry.getValue();
+                        if (change.getTimestamp() <= lastUpdate) {
+                            logger.warn("Skipping journal entry for player {} item {} - player status changed after it",
+                                    playerUUID, entry.getKey());
+                            continue;
+                        }
+                        if (change.getCount() > 0) {
+                            upsertStmt.setString(1, playerUUID.toString());
+                            upsertStmt.setString(2, entry.getKey().toString());
+                            upsertStmt.setInt(3, change.getCount());
+                            upsertStmt.setLong(4, now);
+                            upsertStmt.addBatch();
+                        } else {
+                            deleteStmt.setString(1, playerUUID.toString());
+                            deleteStmt.setString(2, entry.getKey().toString());
+                            deleteStmt.addBatch();
+                        }
+                        addDelta(deltas, entry.getKey(), existingCounts.getOrDefault(entry.getKey(), 0),
+                                Math.max(change.getCount(), 0));
+                        applied++;
+                    }
                     upsertStmt.executeBatch();
+                    deleteStmt.executeBatch();
+                }
+                insertAggregateDeltas(conn, deltas, now);
+                conn.commit();
+                markWritten(playerUUID);
+                itemAggregates.applyDeltas(deltas);
+                return applied;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to replay journal for player {}: {}", playerUUID, e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public ItemAggregates getItemAggregates() {
+        return itemAggregates;
+    }
+
+    /**
+     * item_aggregates에 아직 합쳐지지 않은 item_aggregate_deltas를 더해 메모리 집계를 교체합니다 (동기 호출).
+     * 다른 서버가 저장한 델타를 반영하기 위한 것이며, 두 테이블을 한 문장으로 읽어 합치는 중인 델타를 두 번 세지 않습니다.
+     * 테이블이 작으므로 기본 DB에서 읽습니다.
+     * @return 읽은 아이템 수, 실패 시 -1
+     */
+    @Override
+    public int refreshItemAggregates() {
+        String sql = """
+        SELECT Product, SUM(Total) AS Total, SUM(Holders) AS Holders FROM (
+            SELECT Product, Total, Holders FROM item_aggregates
+            UNION ALL
+            SELECT Product, Total, Holders FROM item_aggregate_deltas
+        ) merged
+        GROUP BY Product
+        """;
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            Map<UUID, ItemAggregate> loaded = new HashMap<>();
+            while (rs.next()) {
+                try {
+                    UUID itemUUID = UUID.fromString(rs.getString("Product"));
+                    loaded.put(itemUUID, new ItemAggregate(itemUUID, rs.getLong("Total"), rs.getLong("Holders")));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping invalid item_aggregates row: {}", rs.getString("Product"));
+                }
+            }
+            itemAggregates.replaceAll(loaded);
+            return loaded.size();
+        } catch (Exception e) {
+            logger.error("Failed to refresh item aggregates: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * player_data에서 아이템별 집계를 다시 계산해 item_aggregates의 오차를 바로잡습니다 (동기 호출).
+     * 합계에 이미 들어간 저장의 대기 델타는 같은 트랜잭션에서 지워, 나중에 합쳐질 때 두 번 세지 않게 합니다.
+     * 아이템마다 Product 인덱스를 쓰는 짧은 트랜잭션으로 처리해 저장 경로를 오래 막지 않으며,
+     * 여러 서버 중 네임드 락을 얻은 한 서버만 실행합니다.
+     * @return 보정한 아이템 수, 락을 얻지 못했거나 실패하면 -1
+     */
+    @Override
+    public int reconcileItemAggregates() {
+        String productsSql = "SELECT UUID FROM items UNION SELECT Product FROM item_aggregates"
+                + " UNION SELECT Product FROM item_aggregate_deltas";
+        String sumSql = "SELECT COALESCE(SUM(Count), 0), COUNT(*) FROM player_data WHERE Product = ? AND Count > 0 LOCK IN SHARE MODE";
+        String pendingSql = "DELETE FROM item_aggregate_deltas WHERE Product = ?";
+        String currentSql = "SELECT Total, Holders FROM item_aggregates WHERE Product = ? FOR UPDATE";
+        String upsertSql = """
+        INSERT INTO item_aggregates (Product, Total, Holders, Lastupdate)
+        VALUES (?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+        Total = VALUES(Total),
+        Holders = VALUES(Holders),
+        Lastupdate = VALUES(Lastupdate)
+        """;
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement lock = conn.prepareStatement("SELECT GET_LOCK('contentsbag_item_aggregates', 0)");
+                 ResultSet rs = lock.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    return -1;
+                }
+            }
+            try {
+                List<String> products = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(productsSql);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        products.add(rs.getString(1));
+                    }
                 }
+                Collections.sort(products);
 
+                int corrected = 0;
+                conn.setAutoCommit(false);
+                for (String product : products) {
+                    try {
+                        // 저장과 같이 player_data → item_aggregate_deltas → item_aggregates 순서로 잠급니다
+                        long total;
+                        long holders;
+                        try (PreparedStatement stmt = conn.prepareStatement(sumSql)) {
+                            stmt.setString(1, product);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                rs.next();
+                                total = rs.getLong(1);
+                                holders = rs.getLong(2);
+                            }
+                        }
+                        try (PreparedStatement stmt = conn.prepareStatement(pendingSql)) {
+                            stmt.setString(1, product);
+                            stmt.executeUpdate();
+                        }
+                        long currentTotal = -1;
+                        long currentHolders = -1;
+                        try (PreparedStatement stmt = conn.prepareStatement(currentSql)) {
+                            stmt.setString(1, product);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                if (rs.next()) {
+                                    currentTotal = rs.getLong(1);
+                                    currentHolders = rs.getLong(2);
+                                }
+                            }
+                        }
+                        if (total != currentTotal || holders != currentHolders) {
+                            try (PreparedStatement stmt = conn.prepareStatement(upsertSql)) {
+                                stmt.setString(1, product);
+                                stmt.setLong(2, total);
+                                stmt.setLong(3, holders);
+                                stmt.setLong(4, System.currentTimeMillis());
+                                stmt.executeUpdate();
+                            }
+                            if (currentTotal >= 0) {
+                                logger.warn("Corrected item aggregate {}: total {} -> {}, holders {} -> {}",
+                                        product, currentTotal, total, currentHolders, holders);
+                            }
+                            corrected++;
+                        }
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        logger.error("Failed to reconcile item aggregate {}: {}", product, e.getMessage());
+                    }
+                }
+                conn.setAutoCommit(true);
+                return corrected;
+            } finally {
+                try (PreparedStatement release = conn.prepareStatement("SELECT RELEASE_LOCK('contentsbag_item_aggregates')")) {
+                    release.executeQuery().close();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Item aggregate reconciliation failed: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 이동이 실패해 lease 이상 READONLY로 남은 플레이어를 되살립니다 (동기 호출).
+     * 이동을 시작하며 transfer_status를 켠 행만 대상으로 하므로, 다른 플러그인이 일부러 잠근 가방은 건드리지 않습니다.
+     * (data_status, last_update) 인덱스로 오래된 행부터 batchSize개씩 잠가 ACTIVE로 바꾸고
+     * server_tracking에 TRANSFER_RECOVERED 기록을 남깁니다. 여러 서버 중 네임드 락을 얻은 한 서버만 실행합니다.
+     * 이동이 어디까지 진행됐는지 알 수 없으므로 current_server는 바꾸지 않으며, 다음에 가방을 활성화하는 서버가 소유권을 가져갑니다.
+     * @return 복구한 플레이어, 락을 얻지 못했거나 실패하면 null
+     */
+    @Override
+    public List<UUID> recoverStaleTransfers(long leaseMs, int batchSize) {
+        String selectSql = """
+        SELECT player_uuid, current_server, last_server
+        FROM server_status
+        WHERE data_status = 'READONLY' AND transfer_status = TRUE AND last_update < ?
+        ORDER BY last_update
+        LIMIT ?
+        FOR UPDATE
+        """;
+        String trackingSql = """
+        INSERT INTO server_tracking 
+        (player_uuid, from_server, to_server, timestamp, status)
+        VALUES (?, ?, ?, ?, 'TRANSFER_RECOVERED')
+        """;
+
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement lock = conn.prepareStatement("SELECT GET_LOCK('contentsbag_transfer_recovery', 0)");
+                 ResultSet rs = lock.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    return null;
+                }
+            }
+            List<UUID> recovered = new ArrayList<>();
+            try {
+                conn.setAutoCommit(false);
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    List<String[]> batch = new ArrayList<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                        stmt.setLong(1, now - leaseMs);
+                        stmt.setInt(2, batchSize);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                batch.add(new String[]{rs.getString("player_uuid"),
+                                        rs.getString("current_server"), rs.getString("last_server")});
+                            }
+                        }
+                    }
+                    if (batch.isEmpty()) {
+                        conn.commit();
+                        break;
+                    }
+
+                    String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+                    String updateSql = """
+                    UPDATE server_status
+                    SET data_status = 'ACTIVE', transfer_status = FALSE, last_update = ?
+                    WHERE player_uuid IN (%s)
+                    """.formatted(placeholders);
+                    try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                        stmt.setLong(1, now);
+                        for (int i = 0; i < batch.size(); i++) {
+                            stmt.setString(i + 2, batch.get(i)[0]);
+                        }
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(trackingSql)) {
+                        for (String[] row : batch) {
+                            stmt.setString(1, row[0]);
+                            stmt.setString(2, row[2] != null ? row[2] : row[1]);
+                            stmt.setString(3, row[1]);
+                            stmt.setLong(4, now);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                    conn.commit();
+
+                    for (String[] row : batch) {
+                        UUID playerUUID = UUID.fromString(row[0]);
+                        markWritten(playerUUID);
+                        recovered.add(playerUUID);
+                    }
+                    if (batch.size() < batchSize) {
+                        break;
+                    }
+                }
+                return recovered;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                try (PreparedStatement release = conn.prepareStatement("SELECT RELEASE_LOCK('contentsbag_transfer_recovery')")) {
+                    release.executeQuery().close();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Stale transfer recovery failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 아이템 보유 수량 상위 플레이어를 조회합니다 (동기 호출, 복제 DB 우선).
+     * @return 순위 순 목록, 실패 시 null
+     */
+    @Override
+    public List<LeaderboardEntry> loadTopHolders(UUID itemUUID, int limit) {
+        String sql = "SELECT UUID, Count FROM player_data WHERE Product = ? AND Count > 0 ORDER BY Count DESC, UUID ASC LIMIT ?";
+        try (Connection conn = readDataSource().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, itemUUID.toString());
+            stmt.setInt(2, limit);
+            return readLeaderboardEntries(stmt);
+        } catch (Exception e) {
+            logger.error("Failed to load top holders for item {}: {}", itemUUID, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * item_leaderboards에 저장된 순위를 조회합니다 (동기 호출).
+     */
+    @Override
+    public List<LeaderboardEntry> loadStoredLeaderboard(UUID itemUUID) {
+        String sql = "SELECT UUID, Count FROM item_leaderboards WHERE Product = ? ORDER BY Position";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, itemUUID.toString());
+            return readLeaderboardEntries(stmt);
+        } catch (Exception e) {
+            logger.error("Failed to load stored leaderboard for item {}: {}", itemUUID, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<LeaderboardEntry> readLeaderboardEntries(PreparedStatement stmt) throws SQLException {
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                try {
+                    entries.add(new LeaderboardEntry(entries.size() + 1,
+                            UUID.fromString(rs.getString("UUID")), rs.getInt("Count")));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping invalid leaderboard row: {}", rs.getString("UUID"));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 아이템의 순위를 item_leaderboards에 통째로 교체해 저장합니다 (동기 호출).
+     */
+    @Override
+    public boolean saveLeaderboard(UUID itemUUID, List<LeaderboardEntry> entries) {
+        String deleteSql = "DELETE FROM item_leaderboards WHERE Product = ?";
+        String insertSql = "INSERT INTO item_leaderboards (Product, Position, UUID, Count, Lastupdate) VALUES (?, ?, ?, ?, ?)";
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql);
+                 PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                deleteStmt.setString(1, itemUUID.toString());
+                deleteStmt.executeUpdate();
+
+                long now = System.currentTimeMillis();
+                for (LeaderboardEntry entry : entries) {
+                    insertStmt.setString(1, itemUUID.toString());
+                    insertStmt.setInt(2, entry.getRank());
+                    insertStmt.setString(3, entry.getPlayerUUID().toString());
+                    insertStmt.setInt(4, entry.getCount());
+                    insertStmt.setLong(5, now);
+                    insertStmt.addBatch();
+                }
+                insertStmt.executeBatch();
                 conn.commit();
                 return true;
             } catch (Exception e) {
-                logger.error("Failed to save player data for {}: {}",
-                        data.getPlayerUUID(), e.getMessage());
-                return false;
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to save leaderboard for item {}: {}", itemUUID, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 아이템 변경 기록을 item_ledger에 다중 행 INSERT로 삽입합니다 (동기 호출).
+     * 이미 삽입된 (서버, 부팅 ID, 순번)은 무시하므로 재전송해도 안전합니다.
+     */
+    @Override
+    public boolean insertLedgerEntries(String serverName, List<ItemLedger.Entry> entries) {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        String sql = "INSERT IGNORE INTO item_ledger "
+                + "(server, boot_id, seq, timestamp, player_uuid, item_uuid, old_count, new_count, reason) VALUES "
+                + String.join(",", Collections.nCopies(entries.size(), "(?, ?, ?, ?, ?, ?, ?, ?, ?)"));
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (ItemLedger.Entry entry : entries) {
+                stmt.setString(index++, serverName);
+                stmt.setLong(index++, entry.bootId);
+                stmt.setLong(index++, entry.sequence);
+                stmt.setLong(index++, entry.record.getTimestamp());
+                stmt.setString(index++, entry.record.getPlayerUUID().toString());
+                stmt.setString(index++, entry.record.getItemUUID().toString());
+                stmt.setInt(index++, entry.record.getOldCount());
+                stmt.setInt(index++, entry.record.getNewCount());
+                stmt.setString(index++, entry.record.getReason());
+            }
+            stmt.executeUpdate();
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to insert {} ledger entries: {}", entries.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * UUID가 afterUUID보다 큰 플레이어를 UUID 순으로 최대 limit명 골라 그 플레이어들의 행을 넘깁니다 (동기 호출, 복제 DB 우선).
+     * 플레이어 경계로 페이지를 나누므로 한 플레이어의 행이 두 페이지에 걸치지 않으며, 행은 서버 커서로 fetchSize개씩 받습니다.
+     * @param afterUUID 이전 페이지의 마지막 플레이어 (첫 페이지는 빈 문자열)
+     * @return 이번 페이지의 마지막 플레이어, 더 이상 없으면 null
+     */
+    @Override
+    public String streamPlayerDataPage(String afterUUID, int limit, int fetchSize, PlayerDataRowConsumer consumer)
+            throws SQLException, IOException {
+        String boundSql = "SELECT DISTINCT UUID FROM player_data WHERE UUID > ? ORDER BY UUID LIMIT ?";
+        String rowsSql = "SELECT UUID, Product, Count FROM player_data WHERE UUID > ? AND UUID <= ? ORDER BY UUID, Product";
+
+        try (Connection conn = streamDataSource.getConnection()) {
+            String lastUUID = null;
+            try (PreparedStatement stmt = conn.prepareStatement(boundSql)) {
+                stmt.setString(1, afterUUID);
+                stmt.setInt(2, limit);
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        lastUUID = rs.getString(1);
+                    }
+                }
+            }
+            if (lastUUID == null) {
+                return null;
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(rowsSql)) {
+                stmt.setString(1, afterUUID);
+                stmt.setString(2, lastUUID);
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getString(1), rs.getString(2), rs.getInt(3));
+                    }
+                }
             }
-        });
+            return lastUUID;
+        }
+    }
+
+    /**
+     * 가져온 가방으로 플레이어의 player_data를 통째로 바꿉니다 (동기 호출, 하나의 트랜잭션).
+     * server_status 행이 없는 플레이어는 ACTIVE로 만들어 첫 접속 때 새 플레이어로 초기화되지 않게 합니다.
+     * server_status를 잠근 뒤 다른 서버가 가지고 있는(SUSPENDED가 아닌) 플레이어는 덮어쓰지 않고 bags에서 제거합니다.
+     * item_aggregates는 갱신하지 않으므로 가져오기가 끝나면 재집계해야 합니다.
+     * @return 다른 서버가 가지고 있어 건너뛴 플레이어 수
+     */
+    @Override
+    public int importPlayerBags(Map<UUID, Map<UUID, Integer>> bags) throws SQLException {
+        if (bags.isEmpty()) {
+            return 0;
+        }
+        String ownerSql = """
+        SELECT player_uuid, current_server, data_status FROM server_status
+        WHERE player_uuid IN (%s)
+        FOR UPDATE
+        """.formatted(String.join(",", Collections.nCopies(bags.size(), "?")));
+        String insertSql = "INSERT INTO player_data (UUID, Product, Count, Lastupdate) VALUES (?, ?, ?, ?)";
+        String statusSql = """
+        INSERT IGNORE INTO server_status
+        (player_uuid, current_server, last_update, transfer_status, data_status)
+        VALUES (?, ?, ?, FALSE, 'ACTIVE')
+        """;
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int skipped = 0;
+                try (PreparedStatement stmt = conn.prepareStatement(ownerSql)) {
+                    bindUUIDs(stmt, 1, bags.keySet());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (!config.getServerName().equalsIgnoreCase(rs.getString("current_server"))
+                                    && !"SUSPENDED".equals(rs.getString("data_status"))
+                                    && bags.remove(UUID.fromString(rs.getString("player_uuid"))) != null) {
+                                skipped++;
+                            }
+                        }
+                    }
+                }
+                if (bags.isEmpty()) {
+                    conn.commit();
+                    return skipped;
+                }
+
+                long now = System.currentTimeMillis();
+                String deleteSql = "DELETE FROM player_data WHERE UUID IN ("
+                        + String.join(",", Collections.nCopies(bags.size(), "?")) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+                    bindUUIDs(stmt, 1, bags.keySet());
+                    stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                    for (Map.Entry<UUID, Map<UUID, Integer>> bag : bags.entrySet()) {
+                        for (Map.Entry<UUID, Integer> item : bag.getValue().entrySet()) {
+                            stmt.setString(1, bag.getKey().toString());
+                            stmt.setString(2, item.getKey().toString());
+                            stmt.setInt(3, item.getValue());
+                            stmt.setLong(4, now);
+                            stmt.addBatch();
+                        }
+                    }
+                    stmt.executeBatch();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(statusSql)) {
+                    for (UUID playerUUID : bags.keySet()) {
+                        stmt.setString(1, playerUUID.toString());
+                        stmt.setString(2, config.getServerName());
+                        stmt.setLong(3, now);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                bags.keySet().forEach(this::markWritten);
+                return skipped;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * 기본 DB 커넥션을 반환합니다. 유지보수 작업처럼 이 클래스 밖에서 DDL을 실행할 때만 사용합니다.
+     */
+    @Override
+    public Connection getWriteConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public int getWritePoolSize() {
+        return dataSource.getMaximumPoolSize();
     }
 
     private Optional<PlayerData> initializeNewPlayer(Connection conn, UUID playerUUID) throws SQLException {
@@ -345,9 +1548,11 @@ public class DatabaseHandler implements AutoCloseable {
             stmt.setLong(3, System.currentTimeMillis());
             stmt.executeUpdate();
         }
+        markWritten(playerUUID);
 
         return Optional.of(newPlayerData);
     }
+    @Override
     public CompletableFuture<Boolean> updateServerInfo(UUID playerUUID, String fromServer, String toServer) {
         return CompletableFuture.supplyAsync(() -> {
             try (Connection conn = dataSource.getConnection()) {
@@ -392,6 +1597,7 @@ public class DatabaseHandler implements AutoCloseable {
                     }
 
                     conn.commit();
+                    markWritten(playerUUID);
                     return true;
                 } catch (Exception e) {
                     conn.rollback();
@@ -402,7 +1608,7 @@ public class DatabaseHandler implements AutoCloseable {
                 logger.error("Database connection failed: {}", e.getMessage());
                 return false;
             }
-        });
+        }, executor);
     }
     public boolean handleNonApiServerTransfer(UUID playerUUID, String fromServer, String toServer) {
         try (Connection conn = dataSource.getConnection()) {
@@ -447,6 +1653,7 @@ public class DatabaseHandler implements AutoCloseable {
                 }
 
                 conn.commit();
+                markWritten(playerUUID);
                 logger.warn("Player {} transferred to non-API server: {}", playerUUID, toServer);
                 return true;
             } catch (Exception e) {
@@ -459,35 +1666,57 @@ public class DatabaseHandler implements AutoCloseable {
             return false;
         }
     }
-    public CompletableFuture<List<ContentItem>> loadItemsByType(int type) {
+    /**
+     * 한 타입의 판매 중인 아이템을 Slot 순으로 읽으며 한 행씩 consumer에 넘깁니다 (복제 DB 우선).
+     * @return 넘긴 아이템 수
+     */
+    @Override
+    public CompletableFuture<Integer> streamItemsByType(int type, Consumer<ContentItem> consumer) {
         return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT * FROM items WHERE Type = ? AND Access = 1 ORDER BY Slot ASC";
-            List<ContentItem> items = new ArrayList<>();
+            String sql = "SELECT " + ITEM_COLUMNS + " FROM items WHERE Type = ? AND Access = 1 ORDER BY Slot ASC";
 
-            try (Connection conn = dataSource.getConnection();
+            try (Connection conn = streamDataSource.getConnection();
                  PreparedStatement stmt = conn.prepareStatement(sql)) {
-
                 stmt.setInt(1, type);
-                ResultSet rs = stmt.executeQuery();
-
-                while (rs.next()) {
-                    ContentItem item = new ContentItem(
-                            UUID.fromString(rs.getString("UUID")),
-                            rs.getString("Itemstack"),
-                            rs.getDouble("Price"),
-                            rs.getInt("Type"),
-                            rs.getInt("Slot")
-                    );
-                    items.add(item);
-                }
-
-                logger.info("Loaded {} items of type {}", items.size(), type);
-                return items;
+                int count = streamItems(stmt, consumer);
+                logger.info("Loaded {} items of type {}", count, type);
+                return count;
             } catch (Exception e) {
                 logger.error("Failed to load items of type {}: {}", type, e.getMessage());
                 throw new CompletionException(e);
             }
-        });
+        }, executor);
+    }
+
+    /**
+     * 카탈로그 쿼리를 서버 커서로 실행해 행을 받는 대로 ContentItem으로 바꿔 넘깁니다.
+     * 컬럼은 ITEM_COLUMNS 순서의 위치로 읽으며, UUID나 가격이 잘못된 행은 건너뛰고 기록합니다.
+     * @return 넘긴 아이템 수
+     */
+    private int streamItems(PreparedStatement stmt, Consumer<ContentItem> consumer) throws SQLException {
+        stmt.setFetchSize(config.getCatalogFetchSize());
+        int count = 0;
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                ContentItem item;
+                try {
+                    item = new ContentItem(
+                            UUID.fromString(rs.getString(1)),
+                            rs.getString(2),
+                            ContentItem.toMinorUnits(rs.getBigDecimal(3)),
+                            rs.getInt(4),
+                            rs.getInt(5)
+                    );
+                } catch (ArithmeticException | IllegalArgumentException e) {
+                    logger.error("Skipping invalid catalog item {} (price {}): {}",
+                            rs.getString(1), rs.getBigDecimal(3), e.getMessage());
+                    continue;
+                }
+                consumer.accept(item);
+                count++;
+            }
+        }
+        return count;
     }
 
     public CompletableFuture<Set<Integer>> getItemTypes() {
@@ -495,7 +1724,7 @@ public class DatabaseHandler implements AutoCloseable {
             String sql = "SELECT DISTINCT Type FROM items ORDER BY Type";
             Set<Integer> types = new HashSet<>();
 
-            try (Connection conn = dataSource.getConnection();
+            try (Connection conn = readDataSource().getConnection();
                  PreparedStatement stmt = conn.prepareStatement(sql)) {
 
                 ResultSet rs = stmt.executeQuery();
@@ -509,14 +1738,14 @@ public class DatabaseHandler implements AutoCloseable {
                 logger.error("Failed to get item types: {}", e.getMessage());
                 throw new CompletionException(e);
             }
-        });
+        }, executor);
     }
 
     public CompletableFuture<Boolean> hasItemType(int type) {
         return CompletableFuture.supplyAsync(() -> {
             String sql = "SELECT COUNT(*) FROM items WHERE Type = ?";
 
-            try (Connection conn = dataSource.getConnection();
+            try (Connection conn = readDataSource().getConnection();
                  PreparedStatement stmt = conn.prepareStatement(sql)) {
 
                 stmt.setInt(1, type);
@@ -530,7 +1759,7 @@ public class DatabaseHandler implements AutoCloseable {
                 logger.error("Failed to check item type existence: {}", e.getMessage());
                 return false;
             }
-        });
+        }, executor);
     }
 
     public CompletableFuture<Map<Integer, Integer>> getItemCountsByType() {
@@ -538,7 +1767,7 @@ public class DatabaseHandler implements AutoCloseable {
             String sql = "SELECT Type, COUNT(*) as count FROM items GROUP BY Type";
             Map<Integer, Integer> counts = new HashMap<>();
 
-            try (Connection conn = dataSource.getConnection();
+            try (Connection conn = readDataSource().getConnection();
                  PreparedStatement stmt = conn.prepareStatement(sql)) {
 
                 ResultSet rs = stmt.executeQuery();
@@ -550,10 +1779,63 @@ public class DatabaseHandler implements AutoCloseable {
                 logger.error("Failed to get item counts by type: {}", e.getMessage());
                 throw new CompletionException(e);
             }
-        });
+        }, executor);
+    }
+    /**
+     * 플레이어의 아이템 수량만 읽기 전용으로 조회합니다 (상태 초기화 없음).
+     * read-your-writes 규칙에 따라 복제본 또는 기본 DB에서 읽습니다.
+     */
+    @Override
+    public CompletableFuture<Map<UUID, Integer>> loadPlayerCounts(UUID playerUUID) {
+        return CompletableFuture.supplyAsync(() -> {
+            String sql = "SELECT Product, Count FROM player_data WHERE UUID = ?";
+            Map<UUID, Integer> counts = new HashMap<>();
+
+            try (Connection conn = playerReadDataSource(playerUUID).getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                stmt.setString(1, playerUUID.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        try {
+                            int count = rs.getInt("Count");
+                            if (count > 0) {
+                                counts.put(UUID.fromString(rs.getString("Product")), count);
+                            }
+                        } catch (IllegalArgumentException e) {
+                            logger.warn("Invalid product UUID for player {}: {}",
+                                    playerUUID, rs.getString("Product"));
+                        }
+                    }
+                }
+                return counts;
+            } catch (Exception e) {
+                logger.error("Failed to load item counts for {}: {}", playerUUID, e.getMessage());
+                throw new CompletionException(e);
+            }
+        }, executor);
     }
+
     @Override
     public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (dataSource != null && !dataSource.isClosed()) {
+            flushAggregateDeltas();
+        }
+        if (streamDataSource != null && !streamDataSource.isClosed()) {
+            streamDataSource.close();
+        }
+        if (replicaDataSource != null && !replicaDataSource.isClosed()) {
+            replicaDataSource.close();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
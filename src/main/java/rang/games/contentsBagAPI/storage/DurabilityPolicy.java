@@ -0,0 +1,31 @@
+package rang.games.contentsBagAPI.storage;
+
+/**
+ * 아이템 변경이 DB에 반영되는 시점을 정하는 정책입니다.
+ */
+public enum DurabilityPolicy {
+    /**
+     * 변경마다 즉시 저장하고, 저장이 끝난 뒤에 완료됩니다.
+     */
+    WRITE_THROUGH,
+    /**
+     * 정해진 시간 안의 변경을 모아 한 번에 저장하고, 그 저장이 끝난 뒤에 완료됩니다.
+     */
+    GROUP_COMMIT,
+    /**
+     * 저널 기록 후 바로 완료되며, 자동 저장 때 DB에 반영됩니다.
+     * 저널에 기록하지 못한 변경은 WRITE_THROUGH로, 저널이 없으면 GROUP_COMMIT으로 처리됩니다.
+     */
+    WRITE_BEHIND;
+
+    public static DurabilityPolicy parse(String value, DurabilityPolicy fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
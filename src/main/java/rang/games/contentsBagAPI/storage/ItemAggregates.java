@@ -0,0 +1,40 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.model.ItemAggregate;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 아이템별 유통량/보유자 수의 메모리 사본입니다.
+ * 이 서버의 저장 델타로 즉시 갱신되고, 다른 서버의 변경은 주기적으로 item_aggregates 테이블에서 다시 읽습니다.
+ */
+public class ItemAggregates {
+    private final Map<UUID, ItemAggregate> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * 커밋된 저장의 델타를 반영합니다.
+     * @param deltas 아이템 UUID → {수량 변화, 보유자 수 변화}
+     */
+    void applyDeltas(Map<UUID, long[]> deltas) {
+        deltas.forEach((itemUUID, delta) -> aggregates.merge(itemUUID,
+                new ItemAggregate(itemUUID, delta[0], delta[1]),
+                (current, ignored) -> current.plus(delta[0], delta[1])));
+    }
+
+    void replaceAll(Map<UUID, ItemAggregate> loaded) {
+        aggregates.keySet().retainAll(loaded.keySet());
+        aggregates.putAll(loaded);
+    }
+
+    public ItemAggregate get(UUID itemUUID) {
+        ItemAggregate aggregate = aggregates.get(itemUUID);
+        return aggregate != null ? aggregate : new ItemAggregate(itemUUID, 0, 0);
+    }
+
+    public Map<UUID, ItemAggregate> getAll() {
+        return Collections.unmodifiableMap(aggregates);
+    }
+}
@@ -0,0 +1,191 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.model.ItemChangeEvent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 아이템 수량 변경을 {@link Flow} 구독자에게 전달하는 발행자입니다.
+ *
+ * 구독마다 (플레이어, 아이템) 단위로 합쳐지는 버퍼를 가지며, 구독자가 요청한 만큼만 전달합니다.
+ * 구독자가 느리면 같은 아이템의 변경은 하나로 합쳐지므로 버퍼는 변경된 아이템 수 이상 커지지 않으며,
+ * 그래도 한도를 넘으면 가장 오래된 변경부터 버립니다. 버린 수는 다음에 전달되는 이벤트의
+ * {@link ItemChangeEvent#getDroppedBefore()}와 {@link #getDroppedChangeCount()}로 알 수 있습니다.
+ * 전달은 발행자 실행기에서 이루어지므로 Bukkit API가 필요한 구독자는 직접 메인 스레드로 넘겨야 합니다.
+ */
+public class ItemChangePublisher implements Flow.Publisher<ItemChangeEvent> {
+    private static final int MAX_BUFFERED_CHANGES = 4096;
+
+    private final Executor executor;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedChanges = new AtomicLong();
+
+    public ItemChangePublisher(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ItemChangeEvent> subscriber) {
+        subscribe(subscriber, event -> true);
+    }
+
+    public void subscribe(Flow.Subscriber<? super ItemChangeEvent> subscriber, Predicate<ItemChangeEvent> filter) {
+        ChangeSubscription subscription = new ChangeSubscription(subscriber, filter);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    public void publish(ItemChangeEvent event) {
+        for (ChangeSubscription subscription : subscriptions) {
+            if (subscription.filter.test(event)) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * 모든 구독에서 버퍼 초과로 버려진 변경 수의 누적값입니다.
+     */
+    public long getDroppedChangeCount() {
+        return droppedChanges.get();
+    }
+
+    /**
+     * 남은 변경을 전달한 뒤 모든 구독을 완료합니다.
+     */
+    public void close() {
+        subscriptions.forEach(ChangeSubscription::complete);
+    }
+
+    private record ChangeKey(UUID playerUUID, UUID itemUUID) {
+    }
+
+    private final class ChangeSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ItemChangeEvent> subscriber;
+        private final Predicate<ItemChangeEvent> filter;
+        private final Map<ChangeKey, ItemChangeEvent> buffer = new LinkedHashMap<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private long dropped;
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+
+        ChangeSubscription(Flow.Subscriber<? super ItemChangeEvent> subscriber, Predicate<ItemChangeEvent> filter) {
+            this.subscriber = subscriber;
+            this.filter = filter;
+        }
+
+        void offer(ItemChangeEvent event) {
+            if (cancelled || completed) {
+                return;
+            }
+            synchronized (this) {
+                ChangeKey key = new ChangeKey(event.getPlayerUUID(), event.getItemUUID());
+                ItemChangeEvent previous = buffer.get(key);
+                buffer.put(key, previous == null ? event : previous.coalesce(event));
+                if (buffer.size() > MAX_BUFFERED_CHANGES) {
+                    Iterator<ItemChangeEvent> eldest = buffer.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    dropped++;
+                    droppedChanges.incrementAndGet();
+                }
+            }
+            signal();
+        }
+
+        void complete() {
+            completed = true;
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Subscription request must be positive: " + n));
+                return;
+            }
+            demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (this) {
+                buffer.clear();
+            }
+        }
+
+        private void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private synchronized ItemChangeEvent poll() {
+            Iterator<ItemChangeEvent> iterator = buffer.values().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            ItemChangeEvent next = iterator.next();
+            iterator.remove();
+            if (dropped > 0) {
+                next = next.withDroppedBefore(dropped);
+                dropped = 0;
+            }
+            return next;
+        }
+
+        private synchronized boolean isBufferEmpty() {
+            return buffer.isEmpty();
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                while (!cancelled && demand.get() > 0) {
+                    ItemChangeEvent next = poll();
+                    if (next == null) {
+                        break;
+                    }
+                    demand.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - 1);
+                    try {
+                        subscriber.onNext(next);
+                    } catch (Throwable t) {
+                        cancel();
+                        subscriber.onError(t);
+                        return;
+                    }
+                }
+                if (completed && !cancelled && isBufferEmpty()) {
+                    cancelled = true;
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
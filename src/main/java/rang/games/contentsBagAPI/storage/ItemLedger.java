@@ -0,0 +1,205 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.config.ConfigManager;
+import rang.games.contentsBagAPI.log.TransactionLogger;
+import rang.games.contentsBagAPI.log.TransactionRecord;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 아이템 변경 기록을 모아 item_ledger 테이블에 일괄 삽입하는 선택적 싱크입니다.
+ *
+ * 기록은 메모리 큐에 쌓였다가 전용 스레드가 batch-size 단위 또는 flush-interval-ms마다 삽입합니다.
+ * DB에 쓰지 못한 배치는 ledger-spill 폴더에 파일로 남기고, DB가 돌아오면 먼저 재전송합니다.
+ * 각 기록은 (서버, 부팅 ID, 순번)으로 식별되므로 재전송이 중복 삽입되지 않습니다.
+ */
+public class ItemLedger {
+    private static final long RETRY_BACKOFF_MS = 10_000;
+
+    private final BagStore databaseHandler;
+    private final TransactionLogger logger;
+    private final String serverName;
+    private final long bootId = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final File spillDir;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private long retryAt = 0;
+    private int spillFiles = 0;
+
+    /**
+     * 싱크에 쌓인 기록 하나입니다.
+     */
+    static final class Entry {
+        final long bootId;
+        final long sequence;
+        final TransactionRecord record;
+
+        Entry(long bootId, long sequence, TransactionRecord record) {
+            this.bootId = bootId;
+            this.sequence = sequence;
+            this.record = record;
+        }
+    }
+
+    public ItemLedger(BagStore databaseHandler, ConfigManager config, TransactionLogger logger) {
+        this.databaseHandler = databaseHandler;
+        this.logger = logger;
+        this.serverName = config.getServerName();
+        this.batchSize = config.getLedgerBatchSize();
+        this.flushIntervalMs = config.getLedgerFlushIntervalMs();
+        this.spillDir = new File(config.getDataFolder(), "ledger-spill");
+        this.writer = Thread.ofPlatform().name("ContentsBag-Ledger").daemon(true).unstarted(this::run);
+        writer.start();
+    }
+
+    public void record(UUID playerUUID, UUID itemUUID, int oldCount, int newCount, String reason) {
+        queue.add(new Entry(bootId, sequence.incrementAndGet(),
+                new TransactionRecord(System.currentTimeMillis(), playerUUID, itemUUID, oldCount, newCount, reason)));
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (System.currentTimeMillis() >= retryAt) {
+                replaySpills();
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        if (System.currentTimeMillis() >= retryAt && databaseHandler.insertLedgerEntries(serverName, batch)) {
+            return;
+        }
+        retryAt = System.currentTimeMillis() + RETRY_BACKOFF_MS;
+        spill(batch);
+    }
+
+    private synchronized void spill(List<Entry> batch) {
+        if (!spillDir.exists()) {
+            spillDir.mkdirs();
+        }
+        File file = new File(spillDir, "spill-" + bootId + "-" + (spillFiles++) + ".tsv");
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            for (Entry entry : batch) {
+                TransactionRecord record = entry.record;
+                out.write(entry.bootId + "\t" + entry.sequence + "\t" + record.getTimestamp() + "\t"
+                        + record.getPlayerUUID() + "\t" + record.getItemUUID() + "\t"
+                        + record.getOldCount() + "\t" + record.getNewCount() + "\t"
+                        + record.getReason().replaceAll("[\\t\\r\\n]", " "));
+                out.newLine();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to spill {} ledger entries to disk: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 디스크에 남은 배치를 오래된 순서로 재전송합니다. 하나라도 실패하면 나머지는 다음 기회로 미룹니다.
+     */
+    private void replaySpills() {
+        File[] files = spillDir.listFiles((dir, name) -> name.endsWith(".tsv"));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            List<Entry> entries;
+            try {
+                entries = readSpill(file);
+            } catch (IOException e) {
+                logger.error("Skipping unreadable ledger spill file {}: {}", file.getName(), e.getMessage());
+                file.renameTo(new File(spillDir, file.getName() + ".bad"));
+                continue;
+            }
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                if (!databaseHandler.insertLedgerEntries(serverName,
+                        entries.subList(from, Math.min(entries.size(), from + batchSize)))) {
+                    retryAt = System.currentTimeMillis() + RETRY_BACKOFF_MS;
+                    return;
+                }
+            }
+            if (!file.delete()) {
+                logger.warn("Failed to delete replayed ledger spill file {}", file.getName());
+            }
+            logger.info("Replayed {} ledger entries from {}", entries.size(), file.getName());
+        }
+    }
+
+    private static List<Entry> readSpill(File file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split("\t", 8);
+                if (fields.length < 8) {
+                    continue;
+                }
+                try {
+                    entries.add(new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                            new TransactionRecord(Long.parseLong(fields[2]),
+                                    UUID.fromString(fields[3]), UUID.fromString(fields[4]),
+                                    Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), fields[7])));
+                } catch (IllegalArgumentException e) {
+                    // 비정상 종료로 잘린 마지막 줄
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 남은 기록을 마저 쓰고 스레드를 멈춥니다. DB에 쓰지 못한 기록은 디스크에 남습니다.
+     */
+    public void close(long timeoutMs) {
+        running = false;
+        try {
+            writer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+            List<Entry> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                spill(remaining);
+            }
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package rang.games.contentsBagAPI.storage;
 
+import org.bukkit.inventory.ItemStack;
+import rang.games.contentsBagAPI.config.ConfigManager;
 import rang.games.contentsBagAPI.log.TransactionLogger;
 import rang.games.contentsBagAPI.model.ContentItem;
+import rang.games.contentsBagAPI.model.DisplayTemplate;
+import rang.games.contentsBagAPI.model.ItemPage;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -10,32 +16,50 @@ import java.util.concurrent.CompletableFuture;
 import java.util.Collections;
 
 public class ItemStorage {
-    private final Map<Integer, Map<UUID, ContentItem>> itemsByType = new ConcurrentHashMap<>();
-    private final Map<UUID, ContentItem> itemsById = new ConcurrentHashMap<>();
-    private final DatabaseHandler databaseHandler;
+    // 재로드 때 새 맵을 만들어 참조만 바꿉니다. 조회 중에 카탈로그가 비어 보이는 순간이 없어야 가격 0으로 계산되지 않습니다
+    private volatile Map<Integer, Map<UUID, ContentItem>> itemsByType = Map.of();
+    private volatile Map<UUID, ContentItem> itemsById = Map.of();
+    private final BagStore databaseHandler;
     private final TransactionLogger logger;
+    private final String priceLineFormat;
+    private final String countLineFormat;
+    private volatile Map<UUID, DisplayTemplate> displayTemplates = Map.of();
+    private Map<UUID, ContentItem> templateItems = Map.of();
+    private volatile CatalogIndex catalogIndex = CatalogIndex.EMPTY;
     private volatile boolean initialLoadComplete = false;
+    private volatile Runnable priceChangeListener = () -> { };
 
-    public ItemStorage(DatabaseHandler databaseHandler, TransactionLogger logger) {
+    public ItemStorage(BagStore databaseHandler, ConfigManager config, TransactionLogger logger) {
         this.databaseHandler = databaseHandler;
         this.logger = logger;
+        this.priceLineFormat = config.getDisplayPriceLine();
+        this.countLineFormat = config.getDisplayCountLine();
     }
 
     public CompletableFuture<Boolean> loadItems() {
-        return databaseHandler.loadItems()
-                .thenApply(items -> {
-                    itemsById.clear();
-                    itemsByType.clear();
-
-                    items.values().forEach(item -> {
-                        itemsById.put(item.getUUID(), item);
-                        itemsByType.computeIfAbsent(item.getType(), k -> new ConcurrentHashMap<>())
-                                .put(item.getUUID(), item);
-                    });
+        Map<UUID, ContentItem> loaded = new HashMap<>();
+        Map<Integer, Map<UUID, ContentItem>> loadedByType = new HashMap<>();
+        return databaseHandler.streamItems(item -> {
+                    loaded.put(item.getUUID(), item);
+                    loadedByType.computeIfAbsent(item.getType(), k -> new HashMap<>())
+                            .put(item.getUUID(), item);
+                })
+                .thenApply(count -> {
+                    boolean pricesChanged;
+                    synchronized (this) {
+                        pricesChanged = pricesDiffer(itemsById, loaded);
+                        itemsById = loaded;
+                        itemsByType = loadedByType;
+                        catalogIndex = CatalogIndex.build(loaded.values());
+                        rebuildDisplayTemplates();
+                    }
 
                     initialLoadComplete = true;
                     logger.info("Loaded {} items across {} types",
-                            items.size(), itemsByType.size());
+                            count, itemsByType.size());
+                    if (pricesChanged) {
+                        priceChangeListener.run();
+                    }
                     return true;
                 })
                 .exceptionally(e -> {
@@ -44,6 +68,70 @@ public class ItemStorage {
                 });
     }
 
+    /**
+     * 표시 템플릿을 다시 만듭니다. 바뀌지 않은 아이템(같은 직렬화 값과 가격)의 템플릿은 그대로 씁니다.
+     */
+    private synchronized void rebuildDisplayTemplates() {
+        Map<UUID, DisplayTemplate> previous = displayTemplates;
+        Map<UUID, ContentItem> previousItems = templateItems;
+        Map<UUID, DisplayTemplate> templates = new HashMap<>();
+        Map<UUID, ContentItem> items = new HashMap<>(itemsById);
+        items.forEach((uuid, item) -> {
+            ContentItem old = previousItems.get(uuid);
+            DisplayTemplate template = previous.get(uuid);
+            if (template == null || old == null || old.getPriceMinor() != item.getPriceMinor()
+                    || !old.getSerializedItem().equals(item.getSerializedItem())) {
+                template = DisplayTemplate.of(item, priceLineFormat, countLineFormat);
+            }
+            templates.put(uuid, template);
+        });
+        templateItems = items;
+        displayTemplates = templates;
+    }
+
+    /**
+     * 아이템의 표시 템플릿입니다. 카탈로그에 없는 아이템이면 null입니다.
+     */
+    public DisplayTemplate getDisplayTemplate(UUID uuid) {
+        return displayTemplates.get(uuid);
+    }
+
+    /**
+     * 보유 수량을 채운 표시 아이템을 만듭니다. 카탈로그에 없는 아이템이면 null입니다.
+     */
+    public ItemStack renderDisplayItem(UUID uuid, int count) {
+        DisplayTemplate template = displayTemplates.get(uuid);
+        return template != null ? template.render(count) : null;
+    }
+
+    /**
+     * 카탈로그 재로드로 가격이 바뀌거나 아이템이 추가/삭제되었을 때 실행할 작업을 지정합니다.
+     */
+    void setPriceChangeListener(Runnable listener) {
+        this.priceChangeListener = listener;
+    }
+
+    private static boolean pricesDiffer(Map<UUID, ContentItem> before, Map<UUID, ContentItem> after) {
+        if (before.size() != after.size()) {
+            return true;
+        }
+        for (ContentItem item : after.values()) {
+            ContentItem previous = before.get(item.getUUID());
+            if (previous == null || previous.getPriceMinor() != item.getPriceMinor()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 최소 단위(0.01) 개당 가격입니다. 카탈로그에 없는 아이템은 0입니다.
+     */
+    public long getPriceMinor(UUID uuid) {
+        ContentItem item = itemsById.get(uuid);
+        return item != null ? item.getPriceMinor() : 0;
+    }
+
     public ContentItem getItem(UUID uuid) {
         return itemsById.get(uuid);
     }
@@ -54,6 +142,31 @@ public class ItemStorage {
         );
     }
 
+    /**
+     * 타입의 아이템을 슬롯 순으로 반환합니다.
+     */
+    public List<ContentItem> getItemsByTypeSorted(int type) {
+        return catalogIndex.ofType(type);
+    }
+
+    /**
+     * 가격이 [minPriceMinor, maxPriceMinor]인 아이템을 가격 순으로 한 페이지 조회합니다.
+     * @param cursor 이전 페이지의 {@link ItemPage#getNextCursor()}, 첫 페이지는 null
+     * @throws IllegalArgumentException 커서 형식이 잘못되었으면
+     */
+    public ItemPage getItemsByPrice(long minPriceMinor, long maxPriceMinor, String cursor, int limit) {
+        return catalogIndex.byPrice(minPriceMinor, maxPriceMinor, cursor, limit);
+    }
+
+    /**
+     * 타입 안에서 슬롯이 [fromSlot, toSlot]인 아이템을 슬롯 순으로 한 페이지 조회합니다.
+     * @param cursor 이전 페이지의 {@link ItemPage#getNextCursor()}, 첫 페이지는 null
+     * @throws IllegalArgumentException 커서 형식이 잘못되었으면
+     */
+    public ItemPage getItemsBySlot(int type, int fromSlot, int toSlot, String cursor, int limit) {
+        return catalogIndex.bySlot(type, fromSlot, toSlot, cursor, limit);
+    }
+
     public Map<UUID, ContentItem> getAllItems() {
         return Collections.unmodifiableMap(itemsById);
     }
@@ -90,35 +203,34 @@ public class ItemStorage {
      * @return 성공 여부
      */
     public CompletableFuture<Boolean> invalidateAndReloadType(int type) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Map<UUID, ContentItem> oldItems = itemsByType.get(type);
-                if (oldItems != null) {
-                    oldItems.keySet().forEach(itemsById::remove);
-                }
-                itemsByType.remove(type);
-
-                return databaseHandler.loadItemsByType(type)
-                        .thenApply(newItems -> {
-                            Map<UUID, ContentItem> typeItems = new ConcurrentHashMap<>();
-                            newItems.forEach(item -> {
-                                itemsById.put(item.getUUID(), item);
-                                typeItems.put(item.getUUID(), item);
-                            });
-                            itemsByType.put(type, typeItems);
-                            logger.info("Reloaded {} items for type {}", typeItems.size(), type);
-                            return true;
-                        })
-                        .exceptionally(e -> {
-                            logger.error("Failed to reload items for type {}: {}", type, e.getMessage());
-                            return false;
-                        })
-                        .get();
-            } catch (Exception e) {
-                logger.error("Error during type invalidation: {}", e.getMessage());
-                return false;
-            }
-        });
+        Map<UUID, ContentItem> typeItems = new HashMap<>();
+        return databaseHandler.streamItemsByType(type, item -> typeItems.put(item.getUUID(), item))
+                .thenApply(count -> {
+                    boolean pricesChanged;
+                    synchronized (this) {
+                        Map<UUID, ContentItem> oldItems = itemsByType.getOrDefault(type, Map.of());
+                        pricesChanged = pricesDiffer(oldItems, typeItems);
+                        Map<UUID, ContentItem> byId = new HashMap<>(itemsById);
+                        oldItems.keySet().forEach(byId::remove);
+                        byId.putAll(typeItems);
+                        Map<Integer, Map<UUID, ContentItem>> byType = new HashMap<>(itemsByType);
+                        byType.put(type, typeItems);
+
+                        itemsById = byId;
+                        itemsByType = byType;
+                        catalogIndex = CatalogIndex.build(byId.values());
+                        rebuildDisplayTemplates();
+                    }
+                    logger.info("Reloaded {} items for type {}", typeItems.size(), type);
+                    if (pricesChanged) {
+                        priceChangeListener.run();
+                    }
+                    return true;
+                })
+                .exceptionally(e -> {
+                    logger.error("Failed to reload items for type {}: {}", type, e.getMessage());
+                    return false;
+                });
     }
 
     /**
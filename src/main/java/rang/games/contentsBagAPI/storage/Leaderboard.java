@@ -0,0 +1,158 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.model.LeaderboardEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * 아이템 하나의 보유 수량 상위 목록입니다.
+ *
+ * 보여줄 순위 수의 두 배까지 보유자를 추적해, 상위권 플레이어가 수량을 잃어도 다음 순위가 바로 채워지도록 합니다.
+ * 추적 범위 밖으로 밀려난 보유자가 있을 수 있는 상태에서 목록이 모자라면 재구성을 요청합니다.
+ */
+class Leaderboard {
+    private static final Comparator<Holder> ORDER = Comparator.comparingInt((Holder holder) -> holder.count)
+            .reversed()
+            .thenComparing(holder -> holder.playerUUID);
+
+    private final int size;
+    private final int capacity;
+    private final TreeSet<Holder> ranking = new TreeSet<>(ORDER);
+    private final Map<UUID, Holder> holders = new HashMap<>();
+    private boolean truncated = false;
+    private volatile View view = new View(List.of(), Map.of());
+
+    private static final class Holder {
+        private final UUID playerUUID;
+        private final int count;
+
+        private Holder(UUID playerUUID, int count) {
+            this.playerUUID = playerUUID;
+            this.count = count;
+        }
+    }
+
+    /**
+     * 조회용 불변 목록입니다. 변경 시 통째로 교체되므로 조회는 잠금 없이 일관된 목록을 봅니다.
+     */
+    private static final class View {
+        private final List<LeaderboardEntry> entries;
+        private final Map<UUID, LeaderboardEntry> index;
+
+        private View(List<LeaderboardEntry> entries, Map<UUID, LeaderboardEntry> index) {
+            this.entries = entries;
+            this.index = index;
+        }
+    }
+
+    Leaderboard(int size) {
+        this.size = size;
+        this.capacity = size * 2;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 플레이어의 새 보유 수량을 반영합니다.
+     * @return 목록이 모자라 DB 기준 재구성이 필요하면 true
+     */
+    synchronized boolean update(UUID playerUUID, int count) {
+        boolean changed = set(playerUUID, count);
+        if (changed) {
+            publishView();
+        }
+        return truncated && ranking.size() < size;
+    }
+
+    /**
+     * DB에서 읽은 상위 목록으로 교체하고, 이 서버에 로드된 가방의 최신 수량을 덮어씁니다.
+     * @param loaded DB 상위 목록 (순위 순)
+     * @param liveCounts 아직 저장되지 않았을 수 있는 로드된 가방의 수량
+     */
+    synchronized void replace(List<LeaderboardEntry> loaded, Map<UUID, Integer> liveCounts) {
+        ranking.clear();
+        holders.clear();
+        truncated = loaded.size() >= capacity;
+        for (LeaderboardEntry entry : loaded) {
+            set(entry.getPlayerUUID(), entry.getCount());
+        }
+        liveCounts.forEach(this::set);
+        publishView();
+    }
+
+    /**
+     * item_leaderboards에 저장된 목록으로 채웁니다.
+     * 저장 이후 다른 서버의 변경이나 추적 범위 밖의 보유자가 있을 수 있으므로, 목록이 모자라면 재구성을 요청하도록 잘린 상태로 둡니다.
+     */
+    synchronized void restore(List<LeaderboardEntry> stored) {
+        replace(stored, Map.of());
+        truncated = true;
+    }
+
+    private boolean set(UUID playerUUID, int count) {
+        Holder previous = holders.remove(playerUUID);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        if (count <= 0) {
+            return previous != null;
+        }
+
+        Holder holder = new Holder(playerUUID, count);
+        if (ranking.size() >= capacity && ORDER.compare(holder, ranking.last()) > 0) {
+            truncated = true;
+            return previous != null;
+        }
+        ranking.add(holder);
+        holders.put(playerUUID, holder);
+        while (ranking.size() > capacity) {
+            holders.remove(ranking.pollLast().playerUUID);
+            truncated = true;
+        }
+        return true;
+    }
+
+    private void publishView() {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.min(size, ranking.size()));
+        Map<UUID, LeaderboardEntry> index = new HashMap<>();
+        int rank = 1;
+        for (Holder holder : ranking) {
+            if (rank > size) {
+                break;
+            }
+            LeaderboardEntry entry = new LeaderboardEntry(rank++, holder.playerUUID, holder.count);
+            entries.add(entry);
+            index.put(holder.playerUUID, entry);
+        }
+        view = new View(Collections.unmodifiableList(entries), index);
+    }
+
+    /**
+     * 보여주는 순위 밖의 예비 보유자까지 포함한, 추적 중인 전체 목록입니다 (순위 순).
+     */
+    synchronized List<LeaderboardEntry> getTrackedEntries() {
+        List<LeaderboardEntry> entries = new ArrayList<>(ranking.size());
+        int rank = 1;
+        for (Holder holder : ranking) {
+            entries.add(new LeaderboardEntry(rank++, holder.playerUUID, holder.count));
+        }
+        return entries;
+    }
+
+    List<LeaderboardEntry> getEntries() {
+        return view.entries;
+    }
+
+    LeaderboardEntry getEntry(UUID playerUUID) {
+        return view.index.get(playerUUID);
+    }
+}
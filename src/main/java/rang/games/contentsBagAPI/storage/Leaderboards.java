@@ -0,0 +1,123 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.config.ConfigManager;
+import rang.games.contentsBagAPI.model.LeaderboardEntry;
+import rang.games.contentsBagAPI.model.PlayerData;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 설정된 아이템들의 보유 수량 순위를 메모리에 유지합니다.
+ *
+ * 이 서버의 수량 변경으로 즉시 갱신되고, 주기적으로(또는 목록이 모자랄 때) 복제 DB에서 다시 만들어
+ * 다른 서버의 변경을 반영합니다. 재구성 결과는 예비 보유자까지 item_leaderboards에 저장되어 재시작 직후에도 바로 조회됩니다.
+ */
+public class Leaderboards {
+    private final Map<UUID, Leaderboard> boards = new HashMap<>();
+    private final Set<UUID> rebuilding = ConcurrentHashMap.newKeySet();
+    private final BagStore databaseHandler;
+    private final Executor executor;
+    private final Supplier<Collection<PlayerData>> loadedPlayers;
+
+    public Leaderboards(BagStore databaseHandler, ConfigManager config, Executor executor,
+                        Supplier<Collection<PlayerData>> loadedPlayers) {
+        this.databaseHandler = databaseHandler;
+        this.executor = executor;
+        this.loadedPlayers = loadedPlayers;
+        for (UUID itemUUID : config.getLeaderboardItems()) {
+            boards.put(itemUUID, new Leaderboard(config.getLeaderboardSize()));
+        }
+    }
+
+    /**
+     * 저장된 순위를 읽어옵니다. 시작 시 한 번 호출합니다.
+     */
+    void load() {
+        boards.forEach((itemUUID, board) ->
+                board.restore(databaseHandler.loadStoredLeaderboard(itemUUID)));
+    }
+
+    void onChange(UUID playerUUID, UUID itemUUID, int count) {
+        Leaderboard board = boards.get(itemUUID);
+        if (board != null && board.update(playerUUID, count)) {
+            requestRebuild(itemUUID);
+        }
+    }
+
+    void rebuildAll() {
+        boards.keySet().forEach(this::requestRebuild);
+    }
+
+    private void requestRebuild(UUID itemUUID) {
+        if (!rebuilding.add(itemUUID)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                rebuild(itemUUID);
+            } finally {
+                rebuilding.remove(itemUUID);
+            }
+        });
+    }
+
+    private void rebuild(UUID itemUUID) {
+        Leaderboard board = boards.get(itemUUID);
+        List<LeaderboardEntry> loaded = databaseHandler.loadTopHolders(itemUUID, board.getCapacity());
+        if (loaded == null) {
+            return;
+        }
+
+        Map<UUID, Integer> liveCounts = new HashMap<>();
+        for (PlayerData data : loadedPlayers.get()) {
+            liveCounts.put(data.getPlayerUUID(), data.getItemCount(itemUUID));
+        }
+        board.replace(loaded, liveCounts);
+        databaseHandler.saveLeaderboard(itemUUID, board.getTrackedEntries());
+    }
+
+    /**
+     * 현재 순위를 예비 보유자까지 저장합니다. 종료 시 호출합니다.
+     */
+    void persistAll() {
+        boards.forEach((itemUUID, board) -> databaseHandler.saveLeaderboard(itemUUID, board.getTrackedEntries()));
+    }
+
+    public boolean isTracked(UUID itemUUID) {
+        return boards.containsKey(itemUUID);
+    }
+
+    public Set<UUID> getTrackedItems() {
+        return Collections.unmodifiableSet(boards.keySet());
+    }
+
+    /**
+     * @param page 0부터 시작하는 페이지
+     */
+    public List<LeaderboardEntry> getPage(UUID itemUUID, int page, int pageSize) {
+        Leaderboard board = boards.get(itemUUID);
+        if (board == null || page < 0 || pageSize <= 0) {
+            return List.of();
+        }
+        List<LeaderboardEntry> entries = board.getEntries();
+        long from = (long) page * pageSize;
+        if (from >= entries.size()) {
+            return List.of();
+        }
+        return entries.subList((int) from, (int) Math.min(entries.size(), from + pageSize));
+    }
+
+    public LeaderboardEntry getEntry(UUID itemUUID, UUID playerUUID) {
+        Leaderboard board = boards.get(itemUUID);
+        return board != null ? board.getEntry(playerUUID) : null;
+    }
+}
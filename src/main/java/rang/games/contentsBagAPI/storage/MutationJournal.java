@@ -0,0 +1,477 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.log.TransactionLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * 아이템 변경을 DB 저장 전에 기록하는 메모리 맵 기반 append-only 저널입니다.
+ *
+ * 두 개의 세그먼트 파일을 번갈아 사용합니다. 각 세그먼트는 세대 번호가 담긴 헤더와
+ * CRC(세대 번호 포함)로 검증되는 고정 길이 레코드로 구성되며, 마지막 레코드 뒤 슬롯은 항상 0으로 표시됩니다.
+ * 시작 시 세대 번호가 높은 유효한 세그먼트를 재생합니다.
+ * 압축은 아직 DB에 반영되지 않은 최신 수량만 다른 세그먼트에 다시 쓰고 세대 번호를 올립니다.
+ * 세그먼트가 절반 넘게 찼을 때만 압축하며, 새 세그먼트를 만들고 쓰는 작업은 append가 기다리지 않도록 락 밖에서 하고
+ * 그 사이의 변경만 락 안에서 옮겨 적은 뒤 전환합니다.
+ */
+public class MutationJournal implements AutoCloseable {
+    private static final int HEADER_MAGIC = 0x43424A31; // "CBJ1"
+    private static final int RECORD_MAGIC = 0x4A524543; // "JREC"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 64;
+    private static final int RECORD_PAYLOAD_SIZE = 53;
+    private static final byte TYPE_MUTATION = 1;
+    private static final byte TYPE_FLUSH = 2;
+
+    private final File[] segments;
+    private final TransactionLogger logger;
+    private final boolean forceOnWrite;
+    private final Map<UUID, Map<UUID, Entry>> pending = new HashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int activeSegment;
+    private long generation;
+    private long capacity;
+    private long sequence;
+    private boolean compacting;
+    private boolean closed;
+    private final List<Map.Entry<UUID, Long>> flushesDuringCompaction = new ArrayList<>();
+
+    public MutationJournal(File directory, long capacity, boolean forceOnWrite, TransactionLogger logger) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create journal directory " + directory);
+        }
+        this.segments = new File[]{
+                new File(directory, "mutations-0.journal"),
+                new File(directory, "mutations-1.journal")
+        };
+        this.capacity = Math.max(HEADER_SIZE + RECORD_SIZE * 1024L, capacity);
+        this.forceOnWrite = forceOnWrite;
+        this.logger = logger;
+        recover();
+    }
+
+    /**
+     * 아직 DB에 반영되지 않은 변경 하나입니다. 수량은 절대값이므로 재생은 멱등입니다.
+     */
+    public static class Entry {
+        private final long sequence;
+        private final int count;
+        private final long timestamp;
+
+        Entry(long sequence, int count, long timestamp) {
+            this.sequence = sequence;
+            this.count = count;
+            this.timestamp = timestamp;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    /**
+     * 변경 하나를 저널에 기록하고 시퀀스 번호를 반환합니다.
+     * 호출이 반환된 뒤에만 변경을 호출자에게 확정해야 합니다.
+     */
+    public synchronized long append(UUID playerUUID, UUID itemUUID, int count) throws IOException {
+        long seq = ++sequence;
+        long now = System.currentTimeMillis();
+        writeRecord(TYPE_MUTATION, seq, playerUUID, itemUUID, count, now);
+        pending.computeIfAbsent(playerUUID, k -> new HashMap<>()).put(itemUUID, new Entry(seq, count, now));
+        return seq;
+    }
+
+    /**
+     * 현재까지 기록된 마지막 시퀀스 번호입니다. 저장 시작 전에 읽어 두었다가
+     * 저장이 성공하면 {@link #markFlushed(UUID, long)}에 넘깁니다.
+     */
+    public synchronized long lastSequence() {
+        return sequence;
+    }
+
+    /**
+     * 플레이어의 변경 중 시퀀스가 {@code flushedSequence} 이하인 것들이 DB에 반영되었음을 기록하고
+     * 세그먼트가 절반 넘게 찼으면 호출한 스레드에서 저널을 압축합니다.
+     */
+    public void markFlushed(UUID playerUUID, long flushedSequence) {
+        Compaction compaction;
+        synchronized (this) {
+            Map<UUID, Entry> entries = pending.get(playerUUID);
+            if (entries == null) {
+                return;
+            }
+            entries.values().removeIf(entry -> entry.sequence <= flushedSequence);
+            if (entries.isEmpty()) {
+                pending.remove(playerUUID);
+            }
+
+            try {
+                // 대기 중인 변경이 없어도 회전하지 않고 반영 기록만 남깁니다. 재생하면 같은 결과가 됩니다
+                writeRecord(TYPE_FLUSH, flushedSequence, playerUUID, null, 0, System.currentTimeMillis());
+            } catch (IOException e) {
+                logger.error("Failed to record journal flush: {}", e.getMessage());
+                return;
+            }
+            if (compacting) {
+                flushesDuringCompaction.add(Map.entry(playerUUID, flushedSequence));
+                return;
+            }
+            if (buffer.position() <= capacity / 2) {
+                return;
+            }
+            compaction = startCompaction();
+        }
+        compact(compaction);
+    }
+
+    /**
+     * 락 밖에서 진행하는 압축 하나의 상태입니다.
+     */
+    private static final class Compaction {
+        private final int target;
+        private final long generation;
+        private final long capacity;
+        private final long snapshotSequence;
+        private final Map<UUID, Map<UUID, Entry>> snapshot;
+
+        Compaction(int target, long generation, long capacity, long snapshotSequence,
+                   Map<UUID, Map<UUID, Entry>> snapshot) {
+            this.target = target;
+            this.generation = generation;
+            this.capacity = capacity;
+            this.snapshotSequence = snapshotSequence;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private Compaction startCompaction() {
+        compacting = true;
+        Map<UUID, Map<UUID, Entry>> snapshot = new HashMap<>();
+        pending.forEach((playerUUID, entries) -> snapshot.put(playerUUID, new HashMap<>(entries)));
+        long liveSize = HEADER_SIZE + (long) RECORD_SIZE * snapshot.values().stream().mapToInt(Map::size).sum();
+        long nextCapacity = capacity;
+        while (nextCapacity < liveSize * 2) {
+            nextCapacity *= 2;
+        }
+        return new Compaction(1 - activeSegment, generation + 1, nextCapacity, sequence, snapshot);
+    }
+
+    /**
+     * 스냅샷을 새 세그먼트에 쓰고 동기화한 뒤(락 밖), 그 사이의 반영 기록과 새 변경을 옮겨 적고 전환합니다(락 안).
+     */
+    private void compact(Compaction compaction) {
+        FileChannel nextChannel = null;
+        try {
+            nextChannel = FileChannel.open(segments[compaction.target].toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer nextBuffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, compaction.capacity);
+            nextBuffer.position(HEADER_SIZE);
+            markEnd(nextBuffer);
+            for (Map.Entry<UUID, Map<UUID, Entry>> player : compaction.snapshot.entrySet()) {
+                for (Map.Entry<UUID, Entry> item : player.getValue().entrySet()) {
+                    Entry entry = item.getValue();
+                    putRecord(nextBuffer, compaction.generation, TYPE_MUTATION, entry.sequence,
+                            player.getKey(), item.getKey(), entry.count, entry.timestamp);
+                }
+            }
+            nextBuffer.force();
+
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                // 스냅샷 이후의 반영 기록을 먼저, 새 변경을 나중에 적어야 재생 결과가 현재 상태와 같습니다
+                for (Map.Entry<UUID, Long> flush : flushesDuringCompaction) {
+                    putRecord(nextBuffer, compaction.generation, TYPE_FLUSH, flush.getValue(),
+                            flush.getKey(), null, 0, now);
+                }
+                for (Map.Entry<UUID, Map<UUID, Entry>> player : pending.entrySet()) {
+                    for (Map.Entry<UUID, Entry> item : player.getValue().entrySet()) {
+                        Entry entry = item.getValue();
+                        if (entry.sequence > compaction.snapshotSequence) {
+                            putRecord(nextBuffer, compaction.generation, TYPE_MUTATION, entry.sequence,
+                                    player.getKey(), item.getKey(), entry.count, entry.timestamp);
+                        }
+                    }
+                }
+                writeHeader(nextBuffer, compaction.generation);
+                if (forceOnWrite) {
+                    nextBuffer.force();
+                }
+
+                FileChannel previousChannel = channel;
+                channel = nextChannel;
+                buffer = nextBuffer;
+                activeSegment = compaction.target;
+                generation = compaction.generation;
+                capacity = compaction.capacity;
+                nextChannel = null;
+                previousChannel.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to compact mutation journal: {}", e.getMessage());
+        } finally {
+            synchronized (this) {
+                compacting = false;
+                flushesDuringCompaction.clear();
+                notifyAll();
+            }
+            if (nextChannel != null) {
+                try {
+                    nextChannel.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close abandoned journal segment: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 재생이 필요한 (DB 반영이 확인되지 않은) 변경을 플레이어별로 반환합니다.
+     */
+    public synchronized Map<UUID, Map<UUID, Entry>> getPendingEntries() {
+        Map<UUID, Map<UUID, Entry>> copy = new HashMap<>();
+        pending.forEach((playerUUID, entries) -> copy.put(playerUUID, new HashMap<>(entries)));
+        return copy;
+    }
+
+    public synchronized int getPendingPlayerCount() {
+        return pending.size();
+    }
+
+    private void writeRecord(byte type, long seq, UUID playerUUID, UUID itemUUID, int count, long timestamp) throws IOException {
+        // 락 밖의 압축이 다른 세그먼트에 쓰는 중이면 끝나기를 기다립니다 (전환되면 새 세그먼트에 공간이 생깁니다)
+        while (compacting && buffer.remaining() < RECORD_SIZE) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for journal compaction", e);
+            }
+        }
+        if (buffer.remaining() < RECORD_SIZE) {
+            rotate();
+            if (buffer.remaining() < RECORD_SIZE) {
+                capacity *= 2;
+                rotate();
+            }
+        }
+
+        int start = buffer.position();
+        putRecord(buffer, generation, type, seq, playerUUID, itemUUID, count, timestamp);
+        if (forceOnWrite) {
+            buffer.force(start, Math.min(RECORD_SIZE * 2, buffer.limit() - start));
+        }
+    }
+
+    /**
+     * 레코드 하나를 target의 현재 위치에 쓰고 다음 슬롯을 끝 표시로 채웁니다. 공간이 없으면 예외를 던집니다.
+     */
+    private static void putRecord(MappedByteBuffer target, long segmentGeneration, byte type, long seq,
+                                  UUID playerUUID, UUID itemUUID, int count, long timestamp) throws IOException {
+        if (target.remaining() < RECORD_SIZE) {
+            throw new IOException("Journal segment is full");
+        }
+        ByteBuffer payload = ByteBuffer.allocate(RECORD_PAYLOAD_SIZE);
+        payload.put(type);
+        payload.putLong(seq);
+        payload.putLong(playerUUID.getMostSignificantBits());
+        payload.putLong(playerUUID.getLeastSignificantBits());
+        payload.putLong(itemUUID != null ? itemUUID.getMostSignificantBits() : 0L);
+        payload.putLong(itemUUID != null ? itemUUID.getLeastSignificantBits() : 0L);
+        payload.putInt(count);
+        payload.putLong(timestamp);
+
+        int start = target.position();
+        target.putInt(RECORD_MAGIC);
+        target.putInt(checksum(payload.array(), segmentGeneration));
+        target.put(payload.array());
+        target.position(start + RECORD_SIZE);
+        markEnd(target);
+    }
+
+    private static void markEnd(MappedByteBuffer target) {
+        if (target.remaining() >= 4) {
+            target.putInt(target.position(), 0);
+        }
+    }
+
+    private static int checksum(byte[] payload, long generation) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        crc.update(ByteBuffer.allocate(8).putLong(generation).array());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 남은 변경만 다른 세그먼트에 새 세대로 다시 쓰고 그 세그먼트로 전환합니다 (락 안).
+     * 시작 시와 세그먼트가 가득 찼을 때만 쓰며, 평소 압축은 compact가 락 밖에서 합니다.
+     */
+    private void rotate() throws IOException {
+        int target = 1 - activeSegment;
+        long nextGeneration = generation + 1;
+        FileChannel nextChannel = FileChannel.open(segments[target].toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long liveSize = HEADER_SIZE + (long) RECORD_SIZE * pending.values().stream().mapToInt(Map::size).sum();
+        while (capacity < liveSize * 2) {
+            capacity *= 2;
+        }
+        MappedByteBuffer nextBuffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        nextBuffer.position(HEADER_SIZE);
+
+        FileChannel previousChannel = channel;
+        channel = nextChannel;
+        buffer = nextBuffer;
+        activeSegment = target;
+        generation = nextGeneration;
+        markEnd(buffer);
+
+        for (Map.Entry<UUID, Map<UUID, Entry>> player : pending.entrySet()) {
+            for (Map.Entry<UUID, Entry> item : player.getValue().entrySet()) {
+                Entry entry = item.getValue();
+                writeRecord(TYPE_MUTATION, entry.sequence, player.getKey(), item.getKey(), entry.count, entry.timestamp);
+            }
+        }
+        buffer.force();
+        writeHeader(buffer, nextGeneration);
+        buffer.force();
+
+        if (previousChannel != null) {
+            previousChannel.close();
+        }
+    }
+
+    private static void writeHeader(MappedByteBuffer target, long generation) {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        header.putInt(HEADER_MAGIC);
+        header.putLong(generation);
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        target.putInt(0, HEADER_MAGIC);
+        target.putLong(4, generation);
+        target.putInt(12, (int) crc.getValue());
+    }
+
+    private static long readGeneration(ByteBuffer source) {
+        if (source.limit() < HEADER_SIZE || source.getInt(0) != HEADER_MAGIC) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.allocate(12);
+        header.putInt(source.getInt(0));
+        header.putLong(source.getLong(4));
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        return (int) crc.getValue() == source.getInt(12) ? source.getLong(4) : -1;
+    }
+
+    /**
+     * 세대 번호가 높은 유효한 세그먼트를 읽어 미반영 변경을 복원한 뒤, 압축된 새 세그먼트로 전환합니다.
+     */
+    private void recover() throws IOException {
+        int best = -1;
+        long bestGeneration = -1;
+        for (int i = 0; i < segments.length; i++) {
+            if (!segments[i].exists() || segments[i].length() < HEADER_SIZE) {
+                continue;
+            }
+            try (FileChannel readChannel = FileChannel.open(segments[i].toPath(), StandardOpenOption.READ)) {
+                long gen = readGeneration(readChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE));
+                if (gen > bestGeneration) {
+                    bestGeneration = gen;
+                    best = i;
+                }
+            }
+        }
+
+        int torn = 0;
+        if (best >= 0) {
+            try (FileChannel readChannel = FileChannel.open(segments[best].toPath(), StandardOpenOption.READ)) {
+                MappedByteBuffer source = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                capacity = Math.max(capacity, readChannel.size());
+                torn = readRecords(source, bestGeneration);
+            }
+            activeSegment = best;
+            generation = bestGeneration;
+        }
+
+        if (torn > 0) {
+            logger.warn("Mutation journal ended with {} unreadable record(s); stopped at last valid record", torn);
+        }
+        if (!pending.isEmpty()) {
+            logger.warn("Mutation journal recovered unflushed changes for {} players", pending.size());
+        }
+        rotate();
+    }
+
+    private int readRecords(ByteBuffer source, long segmentGeneration) {
+        byte[] payload = new byte[RECORD_PAYLOAD_SIZE];
+        for (int position = HEADER_SIZE; position + RECORD_SIZE <= source.limit(); position += RECORD_SIZE) {
+            if (source.getInt(position) != RECORD_MAGIC) {
+                return source.getInt(position) == 0 ? 0 : 1;
+            }
+            source.get(position + 8, payload);
+            if (checksum(payload, segmentGeneration) != source.getInt(position + 4)) {
+                return 1;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(payload);
+            byte type = record.get();
+            long seq = record.getLong();
+            UUID playerUUID = new UUID(record.getLong(), record.getLong());
+            UUID itemUUID = new UUID(record.getLong(), record.getLong());
+            int count = record.getInt();
+            long timestamp = record.getLong();
+            sequence = Math.max(sequence, seq);
+
+            if (type == TYPE_MUTATION) {
+                pending.computeIfAbsent(playerUUID, k -> new HashMap<>())
+                        .put(itemUUID, new Entry(seq, count, timestamp));
+            } else if (type == TYPE_FLUSH) {
+                Map<UUID, Entry> entries = pending.get(playerUUID);
+                if (entries != null) {
+                    entries.values().removeIf(entry -> entry.sequence <= seq);
+                    if (entries.isEmpty()) {
+                        pending.remove(playerUUID);
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to close mutation journal: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.model.BagSnapshot;
+import rang.games.contentsBagAPI.model.PlayerData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 이 서버에 로드되지 않은 플레이어의 가방을 읽기 전용 스냅샷으로 캐시합니다.
+ *
+ * 최근 조회 순(LRU)으로 최대 개수를 넘으면 오래된 항목부터 버리고, 만료 시간이 지난 항목은 다시 읽습니다.
+ * 같은 플레이어에 대한 동시 조회는 하나의 DB 조회로 합쳐지며, 저장/이동 시 무효화됩니다.
+ * 다른 서버의 저장은 무효화되지 않으므로 만료 시간만큼 늦게 보일 수 있습니다.
+ */
+public class OfflineBagCache {
+    private final Map<UUID, CachedBag> entries;
+    private final Map<UUID, CompletableFuture<BagSnapshot>> inFlight = new ConcurrentHashMap<>();
+    private final Function<UUID, CompletableFuture<Map<UUID, Integer>>> loader;
+    private final ToLongFunction<UUID> unitPrices;
+    private final long ttlMs;
+
+    private static final class CachedBag {
+        private final BagSnapshot snapshot;
+        private final long loadedAt;
+
+        private CachedBag(BagSnapshot snapshot, long loadedAt) {
+            this.snapshot = snapshot;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public OfflineBagCache(int maxSize, long ttlMs,
+                           Function<UUID, CompletableFuture<Map<UUID, Integer>>> loader,
+                           ToLongFunction<UUID> unitPrices) {
+        this.ttlMs = ttlMs;
+        this.loader = loader;
+        this.unitPrices = unitPrices;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedBag> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public CompletableFuture<BagSnapshot> get(UUID playerUUID) {
+        synchronized (entries) {
+            CachedBag cached = entries.get(playerUUID);
+            if (cached != null) {
+                if (System.currentTimeMillis() - cached.loadedAt < ttlMs) {
+                    return CompletableFuture.completedFuture(cached.snapshot);
+                }
+                entries.remove(playerUUID);
+            }
+        }
+
+        CompletableFuture<BagSnapshot> created = new CompletableFuture<>();
+        CompletableFuture<BagSnapshot> existing = inFlight.putIfAbsent(playerUUID, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<Map<UUID, Integer>> loading;
+        try {
+            loading = loader.apply(playerUUID);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((counts, error) -> {
+            if (error != null) {
+                inFlight.remove(playerUUID, created);
+                created.completeExceptionally(error);
+                return;
+            }
+            BagSnapshot snapshot;
+            try {
+                snapshot = toSnapshot(playerUUID, counts);
+            } catch (RuntimeException e) {
+                // 실패한 조회가 inFlight에 남으면 이후 조회가 모두 멈추므로 반드시 정리합니다
+                inFlight.remove(playerUUID, created);
+                created.completeExceptionally(e);
+                return;
+            }
+            // 조회 도중 무효화되었다면 결과는 호출자에게만 돌려주고 캐시하지 않습니다
+            if (inFlight.remove(playerUUID, created)) {
+                synchronized (entries) {
+                    entries.put(playerUUID, new CachedBag(snapshot, System.currentTimeMillis()));
+                }
+            }
+            created.complete(snapshot);
+        });
+        return created;
+    }
+
+    private BagSnapshot toSnapshot(UUID playerUUID, Map<UUID, Integer> counts) {
+        PlayerData data = new PlayerData(playerUUID);
+        counts.forEach(data::setItemCount);
+        data.recomputeTotalValue(unitPrices);
+        return data.getSnapshot();
+    }
+
+    public void invalidate(UUID playerUUID) {
+        inFlight.remove(playerUUID);
+        synchronized (entries) {
+            entries.remove(playerUUID);
+        }
+    }
+
+    /**
+     * 카탈로그 가격이 바뀌면 캐시된 가방 가치가 틀려지므로 전체를 비웁니다.
+     */
+    public void invalidateAll() {
+        inFlight.clear();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.model.PlayerData;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 접속이 몰릴 때 플레이어 로드를 잠깐 모아 한 번의 DB 왕복으로 처리합니다.
+ *
+ * 첫 요청이 들어오면 windowMs 뒤에 모인 요청을 한꺼번에 로드하며, maxBatch개가 차면 바로 로드합니다.
+ * 결과는 플레이어별 future로 따로 전달됩니다.
+ */
+class PlayerLoadBatcher {
+    private final ScheduledExecutorService scheduler;
+    private final long windowMs;
+    private final int maxBatch;
+    private final Function<List<UUID>, CompletableFuture<Map<UUID, PlayerData>>> loader;
+    private Map<UUID, CompletableFuture<Optional<PlayerData>>> pending = new LinkedHashMap<>();
+
+    PlayerLoadBatcher(ScheduledExecutorService scheduler, long windowMs, int maxBatch,
+                      Function<List<UUID>, CompletableFuture<Map<UUID, PlayerData>>> loader) {
+        this.scheduler = scheduler;
+        this.windowMs = windowMs;
+        this.maxBatch = maxBatch;
+        this.loader = loader;
+    }
+
+    /**
+     * @return 로드된 데이터, 이 플레이어만 실패했으면 빈 값, 배치 전체가 실패했으면 예외로 완료
+     */
+    CompletableFuture<Optional<PlayerData>> submit(UUID playerUUID) {
+        CompletableFuture<Optional<PlayerData>> future;
+        boolean full;
+        synchronized (this) {
+            future = pending.get(playerUUID);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(playerUUID, future);
+            if (pending.size() == 1) {
+                scheduler.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+            }
+            full = pending.size() >= maxBatch;
+        }
+        if (full) {
+            flush();
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<UUID, CompletableFuture<Optional<PlayerData>>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        CompletableFuture<Map<UUID, PlayerData>> load;
+        try {
+            load = loader.apply(new ArrayList<>(batch.keySet()));
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((loaded, error) -> batch.forEach((playerUUID, future) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(Optional.ofNullable(loaded.get(playerUUID)));
+            }
+        }));
+    }
+}
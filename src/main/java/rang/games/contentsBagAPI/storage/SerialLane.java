@@ -0,0 +1,73 @@
+package rang.games.contentsBagAPI.storage;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 한 플레이어의 작업을 제출 순서대로 하나씩 실행하는 직렬 실행 레인입니다.
+ *
+ * 레인 자체는 스레드를 갖지 않고 공유 실행기에서 작업을 실행하므로 플레이어가 많아도 비용이 작습니다.
+ * 비동기 작업은 반환한 스테이지가 완료될 때까지 레인을 점유하므로, 저장이나 이동 단계 사이에
+ * 다른 변경이 끼어들지 않습니다. 서로 다른 플레이어의 레인은 병렬로 실행됩니다.
+ */
+public class SerialLane {
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public SerialLane(Executor executor) {
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return submitAsync(() -> CompletableFuture.completedFuture(task.get()));
+    }
+
+    /**
+     * 비동기 작업을 제출합니다. 다음 작업은 이 작업이 반환한 스테이지가 완료된 뒤에 시작됩니다.
+     */
+    public <T> CompletableFuture<T> submitAsync(Supplier<? extends CompletionStage<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        tasks.add(() -> {
+            CompletionStage<T> stage;
+            try {
+                stage = task.get();
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+                next();
+                return;
+            }
+            stage.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+                next();
+            });
+        });
+
+        if (pending.getAndIncrement() == 0) {
+            executor.execute(tasks.poll());
+        }
+        return result;
+    }
+
+    private void next() {
+        if (pending.decrementAndGet() > 0) {
+            executor.execute(tasks.poll());
+        }
+    }
+
+    /**
+     * 대기 중이거나 실행 중인 작업이 없는지 확인합니다.
+     */
+    public boolean isIdle() {
+        return pending.get() == 0;
+    }
+}
@@ -2,59 +2,355 @@ package rang.games.contentsBagAPI.storage;
 
 import rang.games.contentsBagAPI.config.ConfigManager;
 import rang.games.contentsBagAPI.log.TransactionLogger;
+import rang.games.contentsBagAPI.log.TransactionRecord;
+import rang.games.contentsBagAPI.model.BagSnapshot;
+import rang.games.contentsBagAPI.model.ContentItem;
+import rang.games.contentsBagAPI.model.ItemChangeEvent;
 import rang.games.contentsBagAPI.model.PlayerData;
 
 import javax.xml.crypto.Data;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class Storage {
+    private static final int SHUTDOWN_MAX_BATCH_SIZE = 500;
+
     private final Map<UUID, PlayerData> playerData = new ConcurrentHashMap<>();
+    private final Map<UUID, SerialLane> lanes = new ConcurrentHashMap<>();
     private final Set<UUID> loadingPlayers = ConcurrentHashMap.newKeySet();
-    private final DatabaseHandler databaseHandler;
+    private final Set<UUID> evictingPlayers = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Long> transferredOut = new ConcurrentHashMap<>();
+    private final AtomicLong leakedBags = new AtomicLong();
+    private final BagStore databaseHandler;
     private final TransactionLogger logger;
     private final ConfigManager config;
     private final ItemStorage itemStorage;
     private final ScheduledExecutorService scheduler;
+    private final ExecutorService executor;
+    private final AutoSaveScheduler autoSaveScheduler;
+    private final MutationJournal journal;
+    private final Leaderboards leaderboards;
+    private final OfflineBagCache offlineBags;
+    private final ItemLedger ledger;
+    private final PlayerLoadBatcher loadBatcher;
+    private final BagArchive archive;
+    private final AtomicBoolean archiveRunning = new AtomicBoolean();
+    private final ItemChangePublisher changePublisher = new ItemChangePublisher(ForkJoinPool.commonPool());
+    private final Map<UUID, CompletableFuture<Boolean>> groupCommits = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Boolean>> loadsInFlight = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Boolean>> activationsInFlight = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Boolean>> queuedSaves = new ConcurrentHashMap<>();
+    private final DurabilityPolicy defaultDurability;
+    private final Map<Integer, DurabilityPolicy> typeDurabilities = new HashMap<>();
+    private final Map<UUID, DurabilityPolicy> itemDurabilities = new HashMap<>();
+    private final long groupCommitMs;
+    private volatile boolean frozen = false;
 
     public Storage(ConfigManager config, TransactionLogger logger) {
+        this(config, logger, new DatabaseHandler(config, logger));
+    }
+
+    /**
+     * @param databaseHandler 가방과 카탈로그를 읽고 쓰는 DB 작업 (테스트에서는 가짜 구현)
+     */
+    Storage(ConfigManager config, TransactionLogger logger, BagStore databaseHandler) {
         this.config = config;
         this.logger = logger;
-        this.databaseHandler = new DatabaseHandler(config, logger);
-        this.itemStorage = new ItemStorage(databaseHandler, logger);
+        this.databaseHandler = databaseHandler;
+        this.itemStorage = new ItemStorage(databaseHandler, config, logger);
+        this.archive = new BagArchive(databaseHandler, config, logger);
+        this.ledger = config.isLedgerEnabled() ? new ItemLedger(databaseHandler, config, logger) : null;
+        this.offlineBags = new OfflineBagCache(config.getOfflineCacheMaxSize(), config.getOfflineCacheTtlMs(),
+                databaseHandler::loadPlayerCounts, itemStorage::getPriceMinor);
+        itemStorage.setPriceChangeListener(this::revaluePlayers);
+        this.groupCommitMs = config.getGroupCommitMs();
+        this.defaultDurability = DurabilityPolicy.parse(config.getDefaultDurability(), DurabilityPolicy.WRITE_BEHIND);
+        config.getTypeDurabilities().forEach((type, policy) ->
+                typeDurabilities.put(type, DurabilityPolicy.parse(policy, defaultDurability)));
+        config.getItemDurabilities().forEach((item, policy) ->
+                itemDurabilities.put(item, DurabilityPolicy.parse(policy, defaultDurability)));
+        this.journal = openJournal();
+        replayJournal();
         this.scheduler = Executors.newScheduledThreadPool(1);
-        startAutoSave();
+        this.loadBatcher = new PlayerLoadBatcher(scheduler, config.getLoadBatchWindowMs(), config.getLoadBatchMaxSize(),
+                databaseHandler::loadAndActivatePlayerData);
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                Thread.ofPlatform().name("ContentsBag-Worker-", 0).daemon(true).factory());
+        this.leaderboards = new Leaderboards(databaseHandler, config, executor, this::getLoadedPlayerData);
+        leaderboards.load();
+        long rebuildMinutes = config.getLeaderboardRebuildMinutes();
+        scheduler.scheduleWithFixedDelay(leaderboards::rebuildAll, 1, rebuildMinutes, TimeUnit.MINUTES);
+        this.autoSaveScheduler = new AutoSaveScheduler(this, config, logger, journal != null);
+        autoSaveScheduler.start(scheduler);
+        if (config.isTrackingMaintenanceEnabled()) {
+            TrackingMaintenance maintenance = new TrackingMaintenance(databaseHandler, config, logger);
+            long interval = config.getTrackingMaintenanceIntervalMinutes();
+            scheduler.scheduleWithFixedDelay(() -> executor.execute(maintenance::run), 1, interval, TimeUnit.MINUTES);
+        }
+        scheduleItemAggregates();
+        if (config.isTransferRecoveryEnabled()) {
+            long sweep = config.getTransferRecoverySweepSeconds();
+            scheduler.scheduleWithFixedDelay(() -> executor.execute(this::recoverStaleTransfers),
+                    sweep, sweep, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 이동이 실패해 READONLY로 남은 플레이어를 DB에서 일괄 복구합니다.
+     */
+    private void recoverStaleTransfers() {
+        List<UUID> recovered = databaseHandler.recoverStaleTransfers(config.getTransferRecoveryLeaseMs(),
+                config.getTransferRecoveryBatchSize());
+        if (recovered == null || recovered.isEmpty()) {
+            return;
+        }
+        logger.warn("Recovered {} players stuck in a failed transfer: {}", recovered.size(), recovered);
+    }
+    private void scheduleItemAggregates() {
+        long refreshMinutes = config.getEconomyRefreshMinutes();
+        long reconcileMinutes = TimeUnit.HOURS.toMinutes(config.getEconomyReconcileHours());
+        executor.execute(() -> {
+            // 집계 테이블이 새로 만들어졌다면 기존 player_data로 한 번 채웁니다
+            if (databaseHandler.refreshItemAggregates() == 0 && databaseHandler.reconcileItemAggregates() > 0) {
+                databaseHandler.refreshItemAggregates();
+            }
+        });
+        long flushMs = config.getEconomyDeltaFlushMs();
+        scheduler.scheduleWithFixedDelay(() -> executor.execute(databaseHandler::flushAggregateDeltas),
+                flushMs, flushMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> executor.execute(databaseHandler::refreshItemAggregates),
+                refreshMinutes, refreshMinutes, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(() -> executor.execute(() -> {
+            if (databaseHandler.reconcileItemAggregates() > 0) {
+                databaseHandler.refreshItemAggregates();
+            }
+        }), reconcileMinutes, reconcileMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 플레이어 가방의 읽기 전용 스냅샷을 조회합니다.
+     * 이 서버에 로드된 플레이어는 현재 가방을, 아니면 캐시된(필요하면 DB에서 읽은) 가방을 반환합니다.
+     */
+    public CompletableFuture<BagSnapshot> getBagSnapshot(UUID playerUUID) {
+        PlayerData data = playerData.get(playerUUID);
+        if (data != null && !isPlayerLoading(playerUUID)) {
+            return CompletableFuture.completedFuture(data.getSnapshot());
+        }
+        return offlineBags.get(playerUUID);
+    }
+
+    /**
+     * 트랜잭션 로그에서 플레이어 또는 아이템의 변경 기록을 범위 안의 최근 것부터 최대 limit개 조회합니다.
+     */
+    public CompletableFuture<List<TransactionRecord>> queryTransactionHistory(UUID subject, long from, long to, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return logger.queryHistory(subject, from, to, limit);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 저장된 모든 가방을 archives 폴더의 파일로 내보냅니다. 같은 이름의 중단된 내보내기가 있으면 이어서 씁니다.
+     * 이 서버에서 아직 저장되지 않은 변경은 포함되지 않습니다.
+     */
+    public CompletableFuture<BagArchive.Result> exportBags(String name) {
+        return runArchiveTask(() -> archive.export(archiveFile(name)));
+    }
+
+    /**
+     * archives 폴더의 파일에서 가방을 가져옵니다. 이 서버에 로드된 플레이어와
+     * server_status상 다른 서버가 가지고 있는 플레이어는 건너뜁니다.
+     * 끝나면 아이템 집계와 순위를 DB 기준으로 다시 만듭니다.
+     */
+    public CompletableFuture<BagArchive.Result> importBags(String name) {
+        return runArchiveTask(() -> {
+            BagArchive.Result result = archive.importArchive(archiveFile(name), playerData::containsKey);
+            offlineBags.invalidateAll();
+            databaseHandler.reconcileItemAggregates();
+            databaseHandler.refreshItemAggregates();
+            leaderboards.rebuildAll();
+            return result;
+        });
+    }
+
+    private interface ArchiveTask {
+        BagArchive.Result run() throws Exception;
+    }
+
+    private CompletableFuture<BagArchive.Result> runArchiveTask(ArchiveTask task) {
+        if (!archiveRunning.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Another export or import is running"));
+        }
+        CompletableFuture<BagArchive.Result> future = new CompletableFuture<>();
+        // 오래 걸리는 작업이므로 작업자 풀을 점유하지 않도록 전용 스레드에서 실행합니다
+        Thread.ofPlatform().name("ContentsBag-Archive").daemon(true).start(() -> {
+            try {
+                future.complete(task.run());
+            } catch (Exception e) {
+                logger.error("Bag archive task failed: {}", e.getMessage());
+                future.completeExceptionally(e);
+            } finally {
+                archiveRunning.set(false);
+            }
+        });
+        return future;
+    }
+
+    private File archiveFile(String name) {
+        if (!name.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Invalid archive name: " + name);
+        }
+        File dir = new File(config.getDataFolder(), "archives");
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return new File(dir, name);
+    }
+
+    public OfflineBagCache getOfflineBagCache() {
+        return offlineBags;
+    }
+
+    public Leaderboards getLeaderboards() {
+        return leaderboards;
+    }
+
+    public ItemAggregates getItemAggregates() {
+        return databaseHandler.getItemAggregates();
+    }
+
+    private MutationJournal openJournal() {
+        if (!config.isJournalEnabled()) {
+            return null;
+        }
+        try {
+            return new MutationJournal(new File(config.getDataFolder(), "journal"),
+                    config.getJournalSizeBytes(), config.isJournalForceOnWrite(), logger);
+        } catch (IOException e) {
+            logger.error("Failed to open mutation journal, changes will not be journaled: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 이전 실행에서 DB에 반영되지 못한 저널 변경을 재생합니다.
+     */
+    private void replayJournal() {
+        if (journal == null) {
+            return;
+        }
+        Map<UUID, Map<UUID, MutationJournal.Entry>> pending = journal.getPendingEntries();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int replayedPlayers = 0;
+        for (Map.Entry<UUID, Map<UUID, MutationJournal.Entry>> entry : pending.entrySet()) {
+            int applied = databaseHandler.replayJournalEntries(entry.getKey(), entry.getValue());
+            if (applied < 0) {
+                continue;
+            }
+            long maxSequence = entry.getValue().values().stream()
+                    .mapToLong(MutationJournal.Entry::getSequence)
+                    .max()
+                    .orElse(0);
+            journal.markFlushed(entry.getKey(), maxSequence);
+            replayedPlayers++;
+        }
+        logger.info("Replayed mutation journal for {} of {} players", replayedPlayers, pending.size());
     }
+
+    /**
+     * 변경을 저널에 기록합니다. 기록에 실패하면 false를 반환하며, 호출자는 즉시 저장해야 합니다.
+     */
+    private boolean journalMutation(UUID playerUUID, UUID itemUUID, int count) {
+        if (journal == null) {
+            return false;
+        }
+        try {
+            journal.append(playerUUID, itemUUID, count);
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to journal change for player {}: {}", playerUUID, e.getMessage());
+            return false;
+        }
+    }
+
+    private long journalSequence() {
+        return journal != null ? journal.lastSequence() : 0;
+    }
+
+    private void markJournalFlushed(UUID playerUUID, long sequence) {
+        if (journal != null) {
+            journal.markFlushed(playerUUID, sequence);
+        }
+    }
+
     public ConfigManager getConfigManager() {
         return config;
     }
     public CompletableFuture<Boolean> validateTransferStatus(UUID playerUUID) {
         return databaseHandler.validateDataStatus(playerUUID);
     }
-    public DatabaseHandler getDatabaseHandler() {
+    public BagStore getDatabaseHandler() {
         return databaseHandler;
     }
     public TransactionLogger getLogger() {
         return logger;
     }
-    private void startAutoSave() {
-        scheduler.scheduleAtFixedRate(() -> {
-            playerData.values().stream()
-                    .filter(PlayerData::isDirty)
-                    .forEach(data -> savePlayerData(data.getPlayerUUID()));
-        }, 5, 5, TimeUnit.MINUTES);
+    Collection<PlayerData> getLoadedPlayerData() {
+        return playerData.values();
+    }
+
+    /**
+     * 레인과 수량 변경이 실행되는 작업자 풀입니다.
+     */
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public AutoSaveScheduler getAutoSaveScheduler() {
+        return autoSaveScheduler;
     }
 
     public CompletableFuture<Boolean> setItemCount(UUID playerUUID, UUID itemUUID, int count, String reason) {
-        if (!databaseHandler.isDataActive(playerUUID)) {
-            logger.warn("Cannot modify data for player {} - data is not active", playerUUID);
+        if (count < 0) {
             return CompletableFuture.completedFuture(false);
         }
-        if (count < 0 || isPlayerLoading(playerUUID)) {
+        return updateItemCount(playerUUID, itemUUID, current -> count, reason);
+    }
+
+    /**
+     * 플레이어 레인에서 현재 수량을 읽어 새 수량을 계산하고 적용합니다.
+     * 같은 플레이어의 변경, 저장, 이동 단계는 제출 순서대로 실행되므로 읽기-계산-쓰기 사이에 다른 변경이 끼어들지 않습니다.
+     *
+     * @param update 현재 수량을 받아 새 수량을 반환합니다. 음수를 반환하면 변경이 거부됩니다.
+     */
+    public CompletableFuture<Boolean> updateItemCount(UUID playerUUID, UUID itemUUID, IntUnaryOperator update, String reason) {
+        if (frozen) {
+            logger.warn("Rejected item change for player {} - storage is shutting down", playerUUID);
+            return CompletableFuture.completedFuture(false);
+        }
+        if (isPlayerLoading(playerUUID)) {
             return CompletableFuture.completedFuture(false);
         }
 
@@ -62,97 +358,327 @@ public class Storage {
         if (data == null) {
             return CompletableFuture.completedFuture(false);
         }
-
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-
-                if (!databaseHandler.isDataActive(playerUUID)) {
-                    logger.warn("Cannot modify data for player {} - data is not active", playerUUID);
+        data.touch();
+
+        return laneFor(playerUUID).submitAsync(() -> databaseHandler.isDataActiveAsync(playerUUID)
+                        .thenApplyAsync(active -> {
+                            if (!active) {
+                                logger.warn("Cannot modify data for player {} - data is not active", playerUUID);
+                                return null;
+                            }
+                            if (frozen || playerData.get(playerUUID) != data) {
+                                return null;
+                            }
+
+                            int oldCount = data.getItemCount(itemUUID);
+                            int newCount = update.applyAsInt(oldCount);
+                            if (newCount < 0) {
+                                return null;
+                            }
+                            return applyItemCount(data, itemUUID, oldCount, newCount, reason);
+                        }, executor))
+                .thenCompose(policy -> {
+                    if (policy == null) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    return switch (policy) {
+                        case WRITE_THROUGH -> savePlayerData(playerUUID);
+                        case GROUP_COMMIT -> scheduleGroupCommit(playerUUID);
+                        case WRITE_BEHIND -> CompletableFuture.completedFuture(true);
+                    };
+                })
+                .exceptionally(e -> {
+                    logger.error("Failed to set item count for player {}: {}", playerUUID, e.getMessage());
                     return false;
-                }
-
-                int oldCount = data.getItemCount(itemUUID);
-                data.setItemCount(itemUUID, count);
-
-                logger.logItemTransaction(playerUUID, itemUUID, oldCount, count, reason);
+                });
+    }
 
-                if (Math.abs(count - oldCount) > 1000) {
-                    return databaseHandler.savePlayerData(data).get();
-                }
+    /**
+     * 아이템의 내구성 정책을 반환합니다. 아이템 설정, 타입 설정, 기본값 순으로 적용됩니다.
+     */
+    public DurabilityPolicy getDurabilityPolicy(UUID itemUUID) {
+        DurabilityPolicy itemPolicy = itemDurabilities.get(itemUUID);
+        if (itemPolicy != null) {
+            return itemPolicy;
+        }
+        ContentItem item = itemStorage.getItem(itemUUID);
+        if (item != null) {
+            return typeDurabilities.getOrDefault(item.getType(), defaultDurability);
+        }
+        return defaultDurability;
+    }
 
-                return true;
-            } catch (Exception e) {
-                logger.error("Failed to set item count for player {}: {}", playerUUID, e.getMessage());
-                return false;
-            }
+    /**
+     * 플레이어의 다음 그룹 커밋에 합류합니다. 진행 중인 창이 없으면 group-commit-ms 뒤 저장을 예약합니다.
+     */
+    private CompletableFuture<Boolean> scheduleGroupCommit(UUID playerUUID) {
+        return groupCommits.computeIfAbsent(playerUUID, k -> {
+            CompletableFuture<Boolean> commit = new CompletableFuture<>();
+            scheduler.schedule(() -> {
+                groupCommits.remove(playerUUID, commit);
+                savePlayerData(playerUUID).whenComplete((success, e) ->
+                        commit.complete(e == null && Boolean.TRUE.equals(success)));
+            }, groupCommitMs, TimeUnit.MILLISECONDS);
+            return commit;
         });
     }
 
-    public CompletableFuture<Boolean> addItemCount(UUID playerUUID, UUID itemUUID, int amount, String reason) {
-        if (!databaseHandler.isDataActive(playerUUID)) {
-            logger.warn("Cannot modify data for player {} - data is not active", playerUUID);
-            return CompletableFuture.completedFuture(false);
+    /**
+     * 변경을 적용하고 기록합니다.
+     * 저널에 남지 않은 변경은 자동 저장까지 미루지 않습니다. 저널 기록에 실패하면 WRITE_THROUGH,
+     * 저널이 꺼져 있거나 열지 못했으면 WRITE_BEHIND 대신 GROUP_COMMIT을 적용합니다.
+     * @return 이 변경에 적용할 내구성 정책
+     */
+    private DurabilityPolicy applyItemCount(PlayerData data, UUID itemUUID, int oldCount, int count, String reason) {
+        UUID playerUUID = data.getPlayerUUID();
+        data.setItemCount(itemUUID, count, itemStorage.getPriceMinor(itemUUID));
+        boolean journaled = journalMutation(playerUUID, itemUUID, count);
+
+        logger.logItemTransaction(playerUUID, itemUUID, oldCount, count, reason);
+        if (ledger != null) {
+            ledger.record(playerUUID, itemUUID, oldCount, count, reason);
         }
-        if (amount <= 0 || isPlayerLoading(playerUUID)) {
-            return CompletableFuture.completedFuture(false);
+        if (oldCount != count) {
+            leaderboards.onChange(playerUUID, itemUUID, count);
+            if (changePublisher.hasSubscribers()) {
+                changePublisher.publish(new ItemChangeEvent(playerUUID, itemUUID, oldCount, count,
+                        reason, System.currentTimeMillis()));
+            }
         }
 
-        PlayerData data = playerData.get(playerUUID);
-        if (data == null) {
-            return CompletableFuture.completedFuture(false);
+        DurabilityPolicy policy = getDurabilityPolicy(itemUUID);
+        if (journaled || policy == DurabilityPolicy.WRITE_THROUGH) {
+            return policy;
         }
+        return journal != null ? DurabilityPolicy.WRITE_THROUGH : DurabilityPolicy.GROUP_COMMIT;
+    }
 
-        int currentCount = data.getItemCount(itemUUID);
-        return setItemCount(playerUUID, itemUUID, currentCount + amount, reason + " (Add)");
+    public CompletableFuture<Boolean> addItemCount(UUID playerUUID, UUID itemUUID, int amount, String reason) {
+        if (amount <= 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return updateItemCount(playerUUID, itemUUID, current -> current + amount, reason + " (Add)");
     }
 
 
     public CompletableFuture<Boolean> removeItemCount(UUID playerUUID, UUID itemUUID, int amount, String reason) {
-        if (!databaseHandler.isDataActive(playerUUID)) {
-            logger.warn("Cannot modify data for player {} - data is not active", playerUUID);
-            return CompletableFuture.completedFuture(false);
-        }
-        if (amount <= 0 || isPlayerLoading(playerUUID)) {
+        if (amount <= 0) {
             return CompletableFuture.completedFuture(false);
         }
+        return updateItemCount(playerUUID, itemUUID,
+                current -> current < amount ? -1 : current - amount, reason + " (Remove)");
+    }
 
-        PlayerData data = playerData.get(playerUUID);
-        if (data == null) {
-            return CompletableFuture.completedFuture(false);
-        }
+    /**
+     * 카탈로그 가격이 바뀌었을 때 로드된 가방의 총 가치를 다시 계산합니다.
+     * 수량 변경과 겹치지 않도록 각 플레이어의 레인에서 실행합니다.
+     */
+    private void revaluePlayers() {
+        offlineBags.invalidateAll();
+        playerData.forEach((playerUUID, data) -> laneFor(playerUUID).submit(() -> {
+            try {
+                return data.recomputeTotalValue(itemStorage::getPriceMinor);
+            } catch (ArithmeticException e) {
+                logger.error("Bag value overflow for player {}: {}", playerUUID, e.getMessage());
+                return false;
+            }
+        }));
+    }
 
-        int currentCount = data.getItemCount(itemUUID);
-        if (currentCount < amount) {
-            return CompletableFuture.completedFuture(false);
+    /**
+     * 이 서버에 접속해 있지 않고 유예 시간 동안 사용되지 않은 가방을 내립니다.
+     * 접속 종료 이벤트를 놓친 경우를 위한 것으로, 내린 가방은 누수로 집계됩니다.
+     * @param onlinePlayers 이 서버에 접속 중인 플레이어 (메인 스레드에서 수집)
+     */
+    public void evictIdlePlayers(Set<UUID> onlinePlayers) {
+        long idleBefore = System.currentTimeMillis() - config.getEvictionGraceMs();
+        if (!frozen) {
+            reloadStrandedTransfers(onlinePlayers);
         }
+        executor.execute(() -> playerData.forEach((playerUUID, data) -> {
+            if (onlinePlayers.contains(playerUUID)) {
+                data.touch();
+                return;
+            }
+            if (frozen || isPlayerLoading(playerUUID) || data.getLastAccess() > idleBefore
+                    || !evictingPlayers.add(playerUUID)) {
+                return;
+            }
+            evictIdle(playerUUID, data).whenComplete((evicted, e) -> evictingPlayers.remove(playerUUID));
+        }));
+    }
 
-        return setItemCount(playerUUID, itemUUID, currentCount - amount, reason + " (Remove)");
+    /**
+     * 이 서버가 여전히 플레이어의 현재 서버라면 저장 후 내리고, 다른 서버로 넘어갔다면
+     * 그 서버의 데이터를 덮어쓰지 않도록 저장하지 않고 내립니다.
+     */
+    private CompletableFuture<Boolean> evictIdle(UUID playerUUID, PlayerData data) {
+        return laneFor(playerUUID).submitAsync(() -> {
+            if (playerData.get(playerUUID) != data) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return databaseHandler.getCurrentServer(playerUUID)
+                    .thenCompose(currentServer -> {
+                        if (currentServer.isEmpty() || currentServer.get().equalsIgnoreCase(config.getServerName())) {
+                            return saveInLane(data);
+                        }
+                        if (data.isDirty()) {
+                            logger.warn("Discarding unsaved changes for idle player {} - data now owned by {}",
+                                    playerUUID, currentServer.get());
+                            markJournalFlushed(playerUUID, journalSequence());
+                        }
+                        return CompletableFuture.completedFuture(true);
+                    })
+                    .thenApply(success -> {
+                        if (!success || playerData.get(playerUUID) != data) {
+                            return false;
+                        }
+                        unloadPlayer(playerUUID);
+                        long leaked = leakedBags.incrementAndGet();
+                        logger.warn("Evicted idle bag for player {} (idle {}s, {} leaked bags so far)",
+                                playerUUID, (System.currentTimeMillis() - data.getLastAccess()) / 1000, leaked);
+                        return true;
+                    });
+        }).exceptionally(e -> {
+            logger.error("Failed to evict idle bag for player {}: {}", playerUUID, e.getMessage());
+            return false;
+        });
     }
 
+    /**
+     * 유휴 정리로 내린 가방 수입니다. 0이 아니면 접속 종료 처리가 누락되고 있다는 뜻입니다.
+     */
+    public long getLeakedBagCount() {
+        return leakedBags.get();
+    }
 
-    public CompletableFuture<Boolean> loadPlayerData(UUID playerUUID) {
+    private SerialLane laneFor(UUID playerUUID) {
+        return lanes.computeIfAbsent(playerUUID, k -> new SerialLane(executor));
+    }
 
-        return databaseHandler.loadPlayerData(playerUUID)
-                .thenApply(optionalData -> {
-                    optionalData.ifPresent(data -> playerData.put(playerUUID, data));
-                    return optionalData.isPresent();
-                })
+    private void unloadPlayer(UUID playerUUID) {
+        playerData.remove(playerUUID);
+        lanes.remove(playerUUID);
+    }
+
+
+    /**
+     * 플레이어 데이터를 DB에서 다시 로드합니다. 같은 플레이어의 로드가 진행 중이면 그 결과를 함께 받습니다.
+     */
+    public CompletableFuture<Boolean> loadPlayerData(UUID playerUUID) {
+        CompletableFuture<Boolean> activating = activationsInFlight.get(playerUUID);
+        if (activating != null) {
+            return activating;
+        }
+        return singleFlight(loadsInFlight, playerUUID, () -> databaseHandler.loadPlayerData(playerUUID)
+                .thenApply(optionalData -> installLoaded(playerUUID, optionalData))
                 .exceptionally(e -> {
                     logger.error("Failed to load player data for {}: {}", playerUUID, e.getMessage());
                     return false;
-                });
+                }));
     }
 
+    /**
+     * 접속한 플레이어의 데이터를 로드하고 가방을 수정 가능(ACTIVE)으로 바꿉니다.
+     * 짧은 시간 안에 들어온 요청은 모아서 한 번에 조회하고 상태도 한 문장으로 바꿉니다.
+     */
+    public CompletableFuture<Boolean> loadAndActivatePlayerData(UUID playerUUID) {
+        return singleFlight(activationsInFlight, playerUUID, () -> {
+            // 상태를 바꾸지 않는 로드가 진행 중이면 끝난 뒤 한 번만 이어서 실행합니다
+            CompletableFuture<Boolean> loading = loadsInFlight.get(playerUUID);
+            CompletableFuture<?> before = loading != null
+                    ? loading.handle((loaded, e) -> null)
+                    : CompletableFuture.completedFuture(null);
+            return before.thenCompose(ignored -> loadBatcher.submit(playerUUID))
+                    .thenApply(optionalData -> installLoaded(playerUUID, optionalData))
+                    .exceptionally(e -> {
+                        logger.error("Failed to load player data for {}: {}", playerUUID, e.getMessage());
+                        return false;
+                    });
+        });
+    }
+
+    /**
+     * 같은 플레이어의 작업이 진행 중이면 새로 시작하지 않고 그 future를 돌려줍니다.
+     */
+    private static CompletableFuture<Boolean> singleFlight(Map<UUID, CompletableFuture<Boolean>> inFlight, UUID playerUUID,
+                                                           Supplier<CompletableFuture<Boolean>> task) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(playerUUID, result);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Boolean> started;
+        try {
+            started = task.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((success, e) -> {
+            inFlight.remove(playerUUID, result);
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(success);
+            }
+        });
+        return result;
+    }
+
+    private boolean installLoaded(UUID playerUUID, Optional<PlayerData> optionalData) {
+        optionalData.ifPresent(data -> {
+            data.recomputeTotalValue(itemStorage::getPriceMinor);
+            playerData.put(playerUUID, data);
+            offlineBags.invalidate(playerUUID);
+        });
+        return optionalData.isPresent();
+    }
+
+    /**
+     * 플레이어 데이터를 저장합니다.
+     * 레인에서 아직 시작하지 않은 저장이 있으면 그 저장에 합쳐지고, 저장이 실행 중이면 그 뒤에 한 번만 이어서 저장합니다.
+     */
     public CompletableFuture<Boolean> savePlayerData(UUID playerUUID) {
         PlayerData data = playerData.get(playerUUID);
         if (data == null || !data.isDirty()) {
             return CompletableFuture.completedFuture(true);
         }
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> queued = queuedSaves.putIfAbsent(playerUUID, result);
+        if (queued != null) {
+            return queued;
+        }
+        laneFor(playerUUID).submitAsync(() -> {
+            // 시작한 뒤의 변경은 다음 저장이 담당하므로 여기서 대기 목록에서 뺍니다
+            queuedSaves.remove(playerUUID, result);
+            return saveInLane(data);
+        }).whenComplete((success, e) -> {
+            queuedSaves.remove(playerUUID, result);
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(success);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 플레이어 레인 안에서 호출되는 저장입니다. 레인을 다시 거치지 않습니다.
+     */
+    private CompletableFuture<Boolean> saveInLane(PlayerData data) {
+        if (!data.isDirty()) {
+            return CompletableFuture.completedFuture(true);
+        }
 
+        UUID playerUUID = data.getPlayerUUID();
+        long sequence = journalSequence();
         return databaseHandler.savePlayerData(data)
                 .thenApply(success -> {
                     if (success) {
                         data.clearDirty();
+                        markJournalFlushed(playerUUID, sequence);
+                        offlineBags.invalidate(playerUUID);
                     }
                     return success;
                 })
@@ -163,25 +689,42 @@ public class Storage {
     }
 
     public CompletableFuture<Boolean> saveAndRemovePlayerData(UUID playerUUID) {
-        return savePlayerData(playerUUID)
+        PlayerData data = playerData.get(playerUUID);
+        if (data == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return laneFor(playerUUID).submitAsync(() -> saveInLane(data)
                 .thenApply(success -> {
                     if (success) {
-                        playerData.remove(playerUUID);
+                        unloadPlayer(playerUUID);
                     }
                     return success;
-                });
+                }));
     }
     public CompletableFuture<Boolean> setDataModifiable(UUID playerUUID, boolean enabled) {
         String status = enabled ? "ACTIVE" : "READONLY";
-        return databaseHandler.updateDataStatus(playerUUID, status)
-                .thenApply(success -> {
+        return saveAfterStatusChange(playerUUID, enabled, databaseHandler.updateDataStatus(playerUUID, status));
+    }
+
+    /**
+     * 서버 이동을 위해 가방을 잠급니다. setDataModifiable(false)와 같지만 이동 중 표시를 함께 남겨,
+     * 이동이 실패하면 복구 작업이 되살릴 수 있게 합니다.
+     */
+    public CompletableFuture<Boolean> lockForTransfer(UUID playerUUID) {
+        return saveAfterStatusChange(playerUUID, false, databaseHandler.beginTransfer(playerUUID));
+    }
+
+    private CompletableFuture<Boolean> saveAfterStatusChange(UUID playerUUID, boolean enabled,
+                                                             CompletableFuture<Boolean> statusChange) {
+        return statusChange
+                .thenCompose(success -> {
                     if (success && !enabled) {
                         PlayerData data = playerData.get(playerUUID);
                         if (data != null && data.isDirty()) {
-                            return savePlayerData(playerUUID).join();
+                            return savePlayerData(playerUUID);
                         }
                     }
-                    return success;
+                    return CompletableFuture.completedFuture(success);
                 });
     }
     public CompletableFuture<Boolean> handleServerTransfer(UUID playerUUID, String targetServer) {
@@ -189,7 +732,7 @@ public class Storage {
         if (data == null || isPlayerLoading(playerUUID)) {
             return CompletableFuture.completedFuture(false);
         }
-        return savePlayerData(playerUUID)
+        return laneFor(playerUUID).submitAsync(() -> saveInLane(data)
                 .thenCompose(saved -> {
                     if (!saved) {
                         logger.error("Failed to save player data before server transfer: {}", playerUUID);
@@ -199,18 +742,49 @@ public class Storage {
                 })
                 .thenApply(success -> {
                     if (success) {
-                        playerData.remove(playerUUID);
+                        unloadPlayer(playerUUID);
+                        offlineBags.invalidate(playerUUID);
+                        transferredOut.put(playerUUID, System.currentTimeMillis());
                     }
                     return success;
-                });
+                }));
+    }
+
+    /**
+     * 이동하려고 가방을 내렸는데 lease가 지나도 이 서버에 남아 있는 플레이어의 가방을 다시 올립니다.
+     * 이동 복구 작업은 DB 상태만 ACTIVE로 되돌리고 어느 서버에서 실행될지 모르므로, 가방을 내린 서버가 직접 다시 로드합니다.
+     * 로드하며 활성화할 때 current_server도 이 서버로 되돌려, 저널 재생과 가져오기가 이 플레이어를 건너뛰지 않게 합니다.
+     */
+    private void reloadStrandedTransfers(Set<UUID> onlinePlayers) {
+        long strandedBefore = System.currentTimeMillis() - config.getTransferRecoveryLeaseMs();
+        transferredOut.forEach((playerUUID, transferredAt) -> {
+            if (!onlinePlayers.contains(playerUUID) || playerData.containsKey(playerUUID)) {
+                transferredOut.remove(playerUUID, transferredAt);
+                return;
+            }
+            if (transferredAt > strandedBefore || isPlayerLoading(playerUUID)) {
+                return;
+            }
+            transferredOut.remove(playerUUID, transferredAt);
+            logger.warn("Player {} is still on this server after a transfer - reloading bag", playerUUID);
+            setPlayerLoading(playerUUID, true);
+            loadAndActivatePlayerData(playerUUID).whenComplete((loaded, e) -> {
+                setPlayerLoading(playerUUID, false);
+                if (e != null || !Boolean.TRUE.equals(loaded)) {
+                    logger.error("Failed to reload bag for stranded player {}", playerUUID);
+                }
+            });
+        });
     }
 
     public void handleForcedLobbyReturn(UUID playerUUID) {
         PlayerData data = playerData.get(playerUUID);
         if (data == null) return;
 
+        SerialLane lane = laneFor(playerUUID);
+        unloadPlayer(playerUUID);
         if (data.isDirty()) {
-            savePlayerData(playerUUID)
+            lane.submitAsync(() -> saveInLane(data))
                     .thenAccept(success -> {
                         if (success) {
                             logger.info("Successfully saved data for forced lobby return: {}", playerUUID);
@@ -219,7 +793,6 @@ public class Storage {
                         }
                     });
         }
-        playerData.remove(playerUUID);
     }
 
     public CompletableFuture<Void> saveAllPlayerData() {
@@ -230,6 +803,147 @@ public class Storage {
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
     }
 
+    /**
+     * 종료 시 호출되는 최종 저장입니다.
+     * 변경을 동결하고 레인에 이미 들어간 변경과 저장이 끝나기를 기다린 뒤, 더티 데이터를 큰 배치 트랜잭션으로 나누어
+     * 풀 크기만큼 병렬로 저장하고, 마감 시간 안에 저장하지 못한 플레이어 목록을 반환합니다.
+     */
+    public List<UUID> flushAllForShutdown(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        frozen = true;
+        autoSaveScheduler.stop();
+
+        // 레인 대기에는 마감 시간의 절반까지만 쓰고 나머지는 배치 저장에 남깁니다
+        Set<UUID> busy = drainLanes(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs / 2));
+        List<UUID> unflushed = new ArrayList<>();
+        List<PlayerData> dirty = new ArrayList<>();
+        playerData.forEach((playerUUID, data) -> {
+            if (!data.isDirty()) {
+                return;
+            }
+            if (busy.contains(playerUUID)) {
+                // 아직 실행 중인 레인 작업과 dirty 플래그가 엇갈리지 않도록 건너뜁니다 (저널은 남겨 둡니다)
+                unflushed.add(playerUUID);
+            } else {
+                dirty.add(data);
+            }
+        });
+        if (dirty.isEmpty()) {
+            groupCommits.forEach((playerUUID, commit) -> commit.complete(!unflushed.contains(playerUUID)));
+            groupCommits.clear();
+            if (!unflushed.isEmpty()) {
+                logger.error("Shutdown flush could not save {} players: {}", unflushed.size(), unflushed);
+            }
+            return unflushed;
+        }
+
+        int parallelism = Math.max(1, Math.min(databaseHandler.getWritePoolSize(), dirty.size()));
+        int batchSize = Math.min(SHUTDOWN_MAX_BATCH_SIZE, (dirty.size() + parallelism - 1) / parallelism);
+        List<List<PlayerData>> batches = new ArrayList<>();
+        for (int i = 0; i < dirty.size(); i += batchSize) {
+            batches.add(dirty.subList(i, Math.min(dirty.size(), i + batchSize)));
+        }
+
+        List<Callable<Boolean>> tasks = batches.stream()
+                .<Callable<Boolean>>map(batch -> () -> flushBatch(batch, deadline))
+                .collect(Collectors.toList());
+
+        ExecutorService flushExecutor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Boolean>> results = flushExecutor.invokeAll(tasks,
+                    Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            for (int i = 0; i < results.size(); i++) {
+                Future<Boolean> result = results.get(i);
+                if (result.isCancelled()) {
+                    batches.get(i).forEach(data -> unflushed.add(data.getPlayerUUID()));
+                    continue;
+                }
+                batches.get(i).stream()
+                        .filter(PlayerData::isDirty)
+                        .forEach(data -> unflushed.add(data.getPlayerUUID()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dirty.stream().filter(PlayerData::isDirty).forEach(data -> unflushed.add(data.getPlayerUUID()));
+        } finally {
+            flushExecutor.shutdownNow();
+        }
+
+        groupCommits.forEach((playerUUID, commit) -> commit.complete(!unflushed.contains(playerUUID)));
+        groupCommits.clear();
+
+        logger.info("Shutdown flush saved {} of {} dirty players in {} batches",
+                dirty.size() + busy.size() - unflushed.size(), dirty.size() + busy.size(), batches.size());
+        if (!unflushed.isEmpty()) {
+            logger.error("Shutdown flush could not save {} players: {}", unflushed.size(), unflushed);
+        }
+        return unflushed;
+    }
+
+    /**
+     * 모든 레인 끝에 빈 작업을 넣고 마감 시간까지 기다립니다. 빈 작업이 실행되면 그 앞의 작업은 모두 끝난 것입니다.
+     * @return 마감 시간 안에 비워지지 않은 플레이어
+     */
+    private Set<UUID> drainLanes(long deadline) {
+        Map<UUID, CompletableFuture<Object>> barriers = new HashMap<>();
+        lanes.forEach((playerUUID, lane) -> {
+            if (!lane.isIdle()) {
+                barriers.put(playerUUID, lane.submit(() -> null));
+            }
+        });
+
+        Set<UUID> busy = new HashSet<>();
+        for (Map.Entry<UUID, CompletableFuture<Object>> barrier : barriers.entrySet()) {
+            try {
+                barrier.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                busy.add(barrier.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                barriers.forEach((playerUUID, future) -> {
+                    if (!future.isDone()) {
+                        busy.add(playerUUID);
+                    }
+                });
+                break;
+            }
+        }
+        if (!busy.isEmpty()) {
+            logger.warn("Shutdown flush timed out waiting for {} players' pending tasks", busy.size());
+        }
+        return busy;
+    }
+
+    private boolean flushBatch(List<PlayerData> batch, long deadline) {
+        long sequence = journalSequence();
+        if (databaseHandler.savePlayerDataBatch(batch)) {
+            batch.forEach(data -> {
+                data.clearDirty();
+                markJournalFlushed(data.getPlayerUUID(), sequence);
+            });
+            return true;
+        }
+
+        // 배치 하나의 실패가 나머지 플레이어까지 막지 않도록 개별 저장으로 재시도
+        boolean allSaved = true;
+        for (PlayerData data : batch) {
+            if (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            if (databaseHandler.savePlayerDataBatch(List.of(data))) {
+                data.clearDirty();
+                markJournalFlushed(data.getPlayerUUID(), sequence);
+            } else {
+                allSaved = false;
+            }
+        }
+        return allSaved;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
     public void setPlayerLoading(UUID uuid, boolean loading) {
         if (loading) {
             loadingPlayers.add(uuid);
@@ -243,7 +957,15 @@ public class Storage {
     }
 
     public PlayerData getPlayerData(UUID uuid) {
-        return playerData.get(uuid);
+        PlayerData data = playerData.get(uuid);
+        if (data != null) {
+            data.touch();
+        }
+        return data;
+    }
+
+    public ItemChangePublisher getChangePublisher() {
+        return changePublisher;
     }
 
     public ItemStorage getItemStorage() {
@@ -251,13 +973,28 @@ public class Storage {
     }
 
     public void shutdown() {
+        autoSaveScheduler.stop();
+        changePublisher.close();
         scheduler.shutdown();
+        executor.shutdown();
         try {
             if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
                 scheduler.shutdownNow();
             }
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
         } catch (InterruptedException e) {
             scheduler.shutdownNow();
+            executor.shutdownNow();
+        }
+        leaderboards.persistAll();
+        if (ledger != null) {
+            ledger.close(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (journal != null) {
+            journal.close();
         }
+        databaseHandler.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,335 @@
+package rang.games.contentsBagAPI.storage;
+
+import rang.games.contentsBagAPI.config.ConfigManager;
+import rang.games.contentsBagAPI.log.TransactionLogger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * server_tracking 테이블의 일 단위(UTC) 파티션을 관리하는 백그라운드 작업입니다.
+ *
+ * 앞으로 쓰일 파티션을 미리 만들고, 보존 기간이 지난 파티션은 일/상태/서버별 요약을
+ * server_tracking_archive에 남긴 뒤 삭제합니다. 여러 서버가 같은 DB를 쓰므로 MySQL 네임드 락으로
+ * 한 번에 한 서버만 실행합니다.
+ *
+ * 파티션 도입 이전의 테이블은 설정으로 허용한 경우에만 변환합니다. 파티션된 빈 테이블로 RENAME TABLE 한 번에
+ * 바꿔 넣어 쓰기를 막지 않으며, 이전 테이블(server_tracking_legacy)은 이후 실행에서 나눠 옮기고 요약한 뒤 삭제합니다.
+ */
+public class TrackingMaintenance {
+    private static final String LOCK_NAME = "contentsbag_tracking_maintenance";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final String LEGACY_PARTITION = "p_legacy";
+    private static final String LEGACY_TABLE = "server_tracking_legacy";
+    private static final int LEGACY_MOVE_BATCH = 5000;
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final BagStore databaseHandler;
+    private final TransactionLogger logger;
+    private final int retentionDays;
+    private final int daysAhead;
+    private final boolean convertLegacyTable;
+    private boolean legacyWarned;
+
+    public TrackingMaintenance(BagStore databaseHandler, ConfigManager config, TransactionLogger logger) {
+        this.databaseHandler = databaseHandler;
+        this.logger = logger;
+        this.retentionDays = config.getTrackingRetentionDays();
+        this.daysAhead = config.getTrackingPartitionDaysAhead();
+        this.convertLegacyTable = config.isTrackingConvertLegacyTable();
+    }
+
+    static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    static String partitionName(LocalDate day) {
+        return day.format(PARTITION_FORMAT);
+    }
+
+    /**
+     * 해당 날짜 파티션의 상한 (다음 날 0시, epoch millis)입니다.
+     */
+    static long dayEnd(LocalDate day) {
+        return day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private static class Partition {
+        private final String name;
+        private final Long upperBound;
+
+        Partition(String name, Long upperBound) {
+            this.name = name;
+            this.upperBound = upperBound;
+        }
+    }
+
+    public void run() {
+        try (Connection conn = databaseHandler.getWriteConnection()) {
+            if (!acquireLock(conn)) {
+                return;
+            }
+            try {
+                List<Partition> partitions = loadPartitions(conn);
+                if (partitions.isEmpty()) {
+                    if (!convertLegacyTable) {
+                        if (!legacyWarned) {
+                            logger.warn("server_tracking is not partitioned; set tracking.convert-legacy-table to convert it");
+                            legacyWarned = true;
+                        }
+                        return;
+                    }
+                    swapInPartitionedTable(conn);
+                    partitions = loadPartitions(conn);
+                }
+                createUpcomingPartitions(conn, partitions);
+                drainLegacyTable(conn, partitions);
+                archiveExpiredPartitions(conn, partitions);
+            } finally {
+                releaseLock(conn);
+            }
+        } catch (Exception e) {
+            logger.error("server_tracking maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            stmt.setString(1, LOCK_NAME);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("Failed to release maintenance lock: {}", e.getMessage());
+        }
+    }
+
+    private List<Partition> loadPartitions(Connection conn) throws SQLException {
+        String sql = """
+            SELECT PARTITION_NAME, PARTITION_DESCRIPTION
+            FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'server_tracking' AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """;
+        List<Partition> partitions = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String description = rs.getString("PARTITION_DESCRIPTION");
+                Long upperBound = "MAXVALUE".equalsIgnoreCase(description) ? null : Long.parseLong(description);
+                partitions.add(new Partition(rs.getString("PARTITION_NAME"), upperBound));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * 파티션 도입 이전에 만들어진 테이블을 같은 구조의 파티션된 빈 테이블로 바꿔 넣습니다.
+     * 복사하는 ALTER는 끝날 때까지 이동 기록 쓰기를 막으므로, 새 테이블을 만든 뒤 RENAME TABLE 한 번으로 교체합니다.
+     * 기존 행은 server_tracking_legacy에 남아 drainLegacyTable이 처리합니다.
+     */
+    private void swapInPartitionedTable(Connection conn) throws SQLException {
+        LocalDate today = today();
+        logger.warn("Swapping in a time-partitioned server_tracking table; old rows move to {}", LEGACY_TABLE);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS server_tracking_new");
+            stmt.execute(String.format("""
+                CREATE TABLE server_tracking_new (
+                    `id` BIGINT AUTO_INCREMENT,
+                    `player_uuid` CHAR(38) NOT NULL,
+                    `from_server` VARCHAR(64) NOT NULL,
+                    `to_server` VARCHAR(64) NOT NULL,
+                    `timestamp` BIGINT NOT NULL,
+                    `status` VARCHAR(20) NOT NULL,
+                    PRIMARY KEY (`id`, `timestamp`),
+                    INDEX `idx_player_uuid` (`player_uuid`),
+                    INDEX `idx_timestamp` (`timestamp`)
+                ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+                PARTITION BY RANGE (`timestamp`) (
+                    PARTITION %s VALUES LESS THAN (%d),
+                    PARTITION %s VALUES LESS THAN (%d),
+                    PARTITION %s VALUES LESS THAN MAXVALUE
+                )
+                """, LEGACY_PARTITION, today.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli(),
+                    partitionName(today), dayEnd(today), FUTURE_PARTITION));
+            stmt.execute("RENAME TABLE server_tracking TO " + LEGACY_TABLE + ", server_tracking_new TO server_tracking");
+        }
+        logger.info("server_tracking is now partitioned by day");
+    }
+
+    /**
+     * 교체 전 테이블의 행을 정리합니다. 보존 기간 안의 행은 새 테이블(주로 p_legacy)로 나눠 옮기고,
+     * 그보다 오래된 행은 server_tracking_archive에 요약한 뒤 테이블을 삭제합니다.
+     * 옮긴 행은 같은 트랜잭션에서 지우므로 중단되어도 다음 실행에서 이어집니다.
+     * 기준 시각은 p_legacy 상한에서 계산하므로 실행마다 같고, 요약과 p_legacy는 서로 다른 날짜를 다룹니다.
+     */
+    private void drainLegacyTable(Connection conn, List<Partition> partitions) throws SQLException {
+        if (!tableExists(conn, LEGACY_TABLE)) {
+            return;
+        }
+        Long legacyBound = partitions.stream()
+                .filter(partition -> LEGACY_PARTITION.equals(partition.name))
+                .map(partition -> partition.upperBound)
+                .findFirst()
+                .orElse(null);
+        if (legacyBound == null) {
+            logger.warn("{} exists but server_tracking has no {} partition; leaving it untouched",
+                    LEGACY_TABLE, LEGACY_PARTITION);
+            return;
+        }
+        long keepFrom = legacyBound - retentionDays * 86400000L;
+
+        String selectSql = "SELECT id FROM " + LEGACY_TABLE + " WHERE `timestamp` >= ? ORDER BY id LIMIT ?";
+        long moved = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                stmt.setLong(1, keepFrom);
+                stmt.setInt(2, LEGACY_MOVE_BATCH);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+            String idList = String.join(",", Collections.nCopies(ids.size(), "?"));
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement("""
+                    INSERT INTO server_tracking (player_uuid, from_server, to_server, `timestamp`, status)
+                    SELECT player_uuid, from_server, to_server, `timestamp`, status
+                    FROM %s WHERE id IN (%s)
+                    """.formatted(LEGACY_TABLE, idList));
+                 PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM " + LEGACY_TABLE + " WHERE id IN (" + idList + ")")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    insert.setLong(i + 1, ids.get(i));
+                    delete.setLong(i + 1, ids.get(i));
+                }
+                insert.executeUpdate();
+                delete.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            moved += ids.size();
+        }
+
+        String archiveSql = """
+            INSERT INTO server_tracking_archive (day, status, from_server, to_server, events, players)
+            SELECT DATE('1970-01-01') + INTERVAL FLOOR(`timestamp` / 86400000) DAY,
+                   status, from_server, to_server, COUNT(*), COUNT(DISTINCT player_uuid)
+            FROM %s
+            WHERE `timestamp` < ?
+            GROUP BY 1, status, from_server, to_server
+            ON DUPLICATE KEY UPDATE
+            events = VALUES(events),
+            players = VALUES(players)
+            """.formatted(LEGACY_TABLE);
+        int summaries;
+        try (PreparedStatement stmt = conn.prepareStatement(archiveSql)) {
+            stmt.setLong(1, keepFrom);
+            summaries = stmt.executeUpdate();
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE " + LEGACY_TABLE);
+        }
+        logger.info("Moved {} recent rows from {} and archived the rest into {} summary rows",
+                moved, LEGACY_TABLE, summaries);
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void createUpcomingPartitions(Connection conn, List<Partition> partitions) throws SQLException {
+        long highestBound = partitions.stream()
+                .filter(partition -> partition.upperBound != null)
+                .mapToLong(partition -> partition.upperBound)
+                .max()
+                .orElse(0);
+
+        List<String> definitions = new ArrayList<>();
+        LocalDate lastDay = today().plusDays(daysAhead);
+        for (LocalDate day = today(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            if (dayEnd(day) > highestBound) {
+                definitions.add(String.format("PARTITION %s VALUES LESS THAN (%d)", partitionName(day), dayEnd(day)));
+            }
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE server_tracking REORGANIZE PARTITION " + FUTURE_PARTITION
+                    + " INTO (" + String.join(", ", definitions) + ")");
+        }
+        logger.info("Created {} upcoming server_tracking partitions", definitions.size() - 1);
+    }
+
+    private void archiveExpiredPartitions(Connection conn, List<Partition> partitions) throws SQLException {
+        long cutoff = today().minusDays(retentionDays).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        for (Partition partition : partitions) {
+            if (partition.upperBound == null || partition.upperBound > cutoff) {
+                continue;
+            }
+
+            String archiveSql = """
+                INSERT INTO server_tracking_archive (day, status, from_server, to_server, events, players)
+                SELECT DATE('1970-01-01') + INTERVAL FLOOR(`timestamp` / 86400000) DAY,
+                       status, from_server, to_server, COUNT(*), COUNT(DISTINCT player_uuid)
+                FROM server_tracking PARTITION (%s)
+                GROUP BY 1, status, from_server, to_server
+                ON DUPLICATE KEY UPDATE
+                events = VALUES(events),
+                players = VALUES(players)
+                """.formatted(partition.name);
+
+            int summaries;
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                summaries = stmt.executeUpdate(archiveSql);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE server_tracking DROP PARTITION " + partition.name);
+            }
+            logger.info("Archived server_tracking partition {} into {} summary rows and dropped it",
+                    partition.name, summaries);
+        }
+    }
+}
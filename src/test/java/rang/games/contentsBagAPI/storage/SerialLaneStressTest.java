@@ -0,0 +1,123 @@
+package rang.games.contentsBagAPI.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 저장이 느릴 때 플레이어 레인이 작업 스레드를 붙잡지 않는지 확인하는 부하 테스트입니다.
+ *
+ * Storage와 같은 구성으로, 레인은 작은 작업 스레드 풀에서 실행되고 저장은 커넥션 풀 크기의 별도 DB 스레드에서 블로킹됩니다.
+ * 레인이 저장 완료를 스레드에서 기다린다면 작업 스레드 2개가 모두 묶여 다른 작업이 시작되지 못합니다.
+ */
+class SerialLaneStressTest {
+    private static final int WORKER_THREADS = 2;
+    private static final int DATABASE_THREADS = 8;
+    private static final long SAVE_MILLIS = 20;
+
+    private ExecutorService workers;
+    private ExecutorService database;
+
+    @BeforeEach
+    void setUp() {
+        workers = Executors.newFixedThreadPool(WORKER_THREADS);
+        database = Executors.newFixedThreadPool(DATABASE_THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+        database.shutdownNow();
+    }
+
+    @Test
+    void slowSavesDoNotStarveWorkerThreads() throws Exception {
+        int players = 64;
+        int savesPerPlayer = 10;
+        List<CompletableFuture<Boolean>> saves = new ArrayList<>();
+        for (int p = 0; p < players; p++) {
+            SerialLane lane = new SerialLane(workers);
+            for (int i = 0; i < savesPerPlayer; i++) {
+                saves.add(lane.submitAsync(this::slowSave));
+            }
+        }
+
+        // DB 스레드가 모두 저장 중인 동안에도 작업 스레드는 다른 작업을 바로 실행해야 합니다
+        for (int i = 0; i < 20; i++) {
+            long submitted = System.nanoTime();
+            long started = CompletableFuture.supplyAsync(System::nanoTime, workers).get(1, TimeUnit.SECONDS);
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(started - submitted);
+            assertTrue(waitedMillis < 200, "worker task waited " + waitedMillis + "ms behind pending saves");
+            Thread.sleep(SAVE_MILLIS);
+        }
+
+        CompletableFuture.allOf(saves.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        assertTrue(saves.stream().allMatch(CompletableFuture::join));
+    }
+
+    @Test
+    void laneRunsOneTaskAtATimeInSubmissionOrder() throws Exception {
+        int players = 32;
+        int tasksPerPlayer = 25;
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        List<List<Integer>> orders = new ArrayList<>();
+        List<AtomicInteger> maxRunning = new ArrayList<>();
+
+        for (int p = 0; p < players; p++) {
+            SerialLane lane = new SerialLane(workers);
+            List<Integer> order = new ArrayList<>();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger peak = new AtomicInteger();
+            orders.add(order);
+            maxRunning.add(peak);
+            for (int i = 0; i < tasksPerPlayer; i++) {
+                int index = i;
+                results.add(lane.submitAsync(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    synchronized (order) {
+                        order.add(index);
+                    }
+                    return slowSave().whenComplete((saved, e) -> running.decrementAndGet());
+                }));
+            }
+        }
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        for (int p = 0; p < players; p++) {
+            assertEquals(1, maxRunning.get(p).get());
+            List<Integer> order = orders.get(p);
+            synchronized (order) {
+                assertEquals(tasksPerPlayer, order.size());
+                for (int i = 0; i < tasksPerPlayer; i++) {
+                    assertEquals(i, order.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * DatabaseHandler의 저장처럼 DB 스레드에서 블로킹되는 느린 저장입니다.
+     */
+    private CompletableFuture<Boolean> slowSave() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(SAVE_MILLIS);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }, database);
+    }
+}
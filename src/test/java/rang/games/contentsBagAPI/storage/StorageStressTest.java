@@ -0,0 +1,333 @@
+package rang.games.contentsBagAPI.storage;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rang.games.contentsBagAPI.config.ConfigManager;
+import rang.games.contentsBagAPI.log.TransactionLogger;
+import rang.games.contentsBagAPI.model.ContentItem;
+import rang.games.contentsBagAPI.model.LeaderboardEntry;
+import rang.games.contentsBagAPI.model.PlayerData;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DB 호출이 느릴 때 Storage의 수량 변경, 상태 변경, 카탈로그 재로드가 작업자 풀을 붙잡지 않는지 확인하는 부하 테스트입니다.
+ *
+ * 실제 Storage에 DatabaseHandler 대신 가짜 BagStore를 넣습니다. 가짜의 모든 비동기 호출은 커넥션 풀 크기의
+ * 별도 DB 스레드에서 블로킹되므로, 어느 경로든 작업자 스레드에서 DB 완료를 기다리면 작업자 풀이 멈춥니다.
+ */
+class StorageStressTest {
+    private static final int DATABASE_THREADS = 8;
+    private static final long DATABASE_MILLIS = 20;
+    private static final int PLAYERS = 64;
+    private static final int CHANGES_PER_PLAYER = 10;
+    private static final int ITEM_TYPE = 1;
+
+    @TempDir
+    File dataFolder;
+
+    private SlowBagStore store;
+    private TransactionLogger logger;
+    private Storage storage;
+
+    @BeforeEach
+    void setUp() {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("durability.default", "WRITE_THROUGH");
+        yaml.set("journal.enabled", false);
+        yaml.set("tracking.maintenance-enabled", false);
+        yaml.set("transfer-recovery.enabled", false);
+        yaml.set("transaction-log.compress", false);
+        Plugin plugin = fakePlugin(yaml, dataFolder);
+
+        ConfigManager config = new ConfigManager(plugin);
+        store = new SlowBagStore();
+        logger = new TransactionLogger(plugin, config);
+        storage = new Storage(config, logger, store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+        logger.close();
+    }
+
+    @Test
+    void slowDatabaseCallsDoNotStarveWorkerPool() throws Exception {
+        List<UUID> players = new ArrayList<>();
+        List<CompletableFuture<Boolean>> loads = new ArrayList<>();
+        for (int p = 0; p < PLAYERS; p++) {
+            UUID playerUUID = UUID.randomUUID();
+            players.add(playerUUID);
+            loads.add(storage.loadAndActivatePlayerData(playerUUID));
+        }
+        CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertTrue(loads.stream().allMatch(CompletableFuture::join));
+
+        UUID counted = UUID.randomUUID();
+        UUID replaced = UUID.randomUUID();
+        List<CompletableFuture<Boolean>> changes = new ArrayList<>();
+        List<CompletableFuture<Boolean>> others = new ArrayList<>();
+        for (int p = 0; p < PLAYERS; p++) {
+            UUID playerUUID = players.get(p);
+            for (int i = 0; i < CHANGES_PER_PLAYER; i++) {
+                changes.add(storage.updateItemCount(playerUUID, counted, current -> current + 1, "stress"));
+                changes.add(storage.setItemCount(playerUUID, replaced, i, "stress"));
+            }
+            // 잠금 해제는 저장 없이 상태만 바꾸므로 변경 결과에 영향을 주지 않습니다
+            others.add(storage.setDataModifiable(playerUUID, true));
+            if (p % 8 == 0) {
+                others.add(storage.getItemStorage().invalidateAndReloadType(ITEM_TYPE));
+            }
+        }
+        List<CompletableFuture<Boolean>> all = new ArrayList<>(changes);
+        all.addAll(others);
+        CompletableFuture<Void> allDone = CompletableFuture.allOf(all.toArray(new CompletableFuture[0]));
+
+        // DB 스레드가 모두 블로킹된 동안에도 작업자 풀은 다른 작업을 바로 실행해야 합니다
+        ExecutorService workers = storage.getExecutor();
+        for (int i = 0; i < 20; i++) {
+            long submitted = System.nanoTime();
+            long started = CompletableFuture.supplyAsync(System::nanoTime, workers).get(1, TimeUnit.SECONDS);
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(started - submitted);
+            assertTrue(waitedMillis < 200, "worker task waited " + waitedMillis + "ms behind pending database calls");
+            Thread.sleep(DATABASE_MILLIS);
+        }
+        assertFalse(allDone.isDone(), "database calls finished before the worker pool was probed");
+
+        allDone.get(60, TimeUnit.SECONDS);
+        assertTrue(all.stream().allMatch(CompletableFuture::join));
+        for (UUID playerUUID : players) {
+            PlayerData data = storage.getPlayerData(playerUUID);
+            assertEquals(CHANGES_PER_PLAYER, data.getItemCount(counted));
+            assertEquals(CHANGES_PER_PLAYER - 1, data.getItemCount(replaced));
+        }
+        assertTrue(store.saves.get() > 0);
+        assertTrue(store.reloads.get() > 0);
+    }
+
+    private static Plugin fakePlugin(YamlConfiguration yaml, File dataFolder) {
+        Logger logger = Logger.getLogger("ContentsBagStressTest");
+        logger.setLevel(Level.WARNING);
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getConfig" -> yaml;
+                    case "getDataFolder" -> dataFolder;
+                    case "getLogger" -> logger;
+                    case "getName" -> "ContentsBag";
+                    case "saveConfig" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "FakePlugin";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * DatabaseHandler처럼 모든 비동기 호출이 자체 DB 스레드에서 블로킹되는 가짜 저장소입니다.
+     */
+    private static final class SlowBagStore implements BagStore {
+        private final ExecutorService database = Executors.newFixedThreadPool(DATABASE_THREADS);
+        private final Map<UUID, String> statuses = new ConcurrentHashMap<>();
+        private final ItemAggregates aggregates = new ItemAggregates();
+        private final AtomicInteger saves = new AtomicInteger();
+        private final AtomicInteger reloads = new AtomicInteger();
+
+        private <T> CompletableFuture<T> slow(Supplier<T> result) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(DATABASE_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return result.get();
+            }, database);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> updateDataStatus(UUID playerUUID, String status) {
+            return slow(() -> statuses.replace(playerUUID, status) != null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> beginTransfer(UUID playerUUID) {
+            return updateDataStatus(playerUUID, "READONLY");
+        }
+
+        @Override
+        public CompletableFuture<Boolean> isDataActiveAsync(UUID playerUUID) {
+            return slow(() -> isDataActive(playerUUID));
+        }
+
+        @Override
+        public boolean isDataActive(UUID playerUUID) {
+            return "ACTIVE".equals(statuses.get(playerUUID));
+        }
+
+        @Override
+        public CompletableFuture<Optional<String>> getCurrentServer(UUID playerUUID) {
+            return slow(Optional::empty);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> validateDataStatus(UUID playerUUID) {
+            return isDataActiveAsync(playerUUID);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> updateServerInfo(UUID playerUUID, String fromServer, String toServer) {
+            return slow(() -> true);
+        }
+
+        @Override
+        public List<UUID> recoverStaleTransfers(long leaseMs, int batchSize) {
+            return List.of();
+        }
+
+        @Override
+        public CompletableFuture<Optional<PlayerData>> loadPlayerData(UUID playerUUID) {
+            return slow(() -> Optional.of(new PlayerData(playerUUID)));
+        }
+
+        @Override
+        public CompletableFuture<Map<UUID, PlayerData>> loadAndActivatePlayerData(Collection<UUID> playerUUIDs) {
+            return slow(() -> {
+                Map<UUID, PlayerData> loaded = new HashMap<>();
+                for (UUID playerUUID : playerUUIDs) {
+                    statuses.put(playerUUID, "ACTIVE");
+                    loaded.put(playerUUID, new PlayerData(playerUUID));
+                }
+                return loaded;
+            });
+        }
+
+        @Override
+        public CompletableFuture<Map<UUID, Integer>> loadPlayerCounts(UUID playerUUID) {
+            return slow(Map::of);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> savePlayerData(PlayerData data) {
+            return slow(() -> {
+                saves.incrementAndGet();
+                return true;
+            });
+        }
+
+        @Override
+        public boolean savePlayerDataBatch(Collection<PlayerData> batch) {
+            return true;
+        }
+
+        @Override
+        public int replayJournalEntries(UUID playerUUID, Map<UUID, MutationJournal.Entry> entries) {
+            return 0;
+        }
+
+        @Override
+        public String streamPlayerDataPage(String afterUUID, int limit, int fetchSize, PlayerDataRowConsumer consumer) {
+            return null;
+        }
+
+        @Override
+        public int importPlayerBags(Map<UUID, Map<UUID, Integer>> bags) {
+            return 0;
+        }
+
+        @Override
+        public CompletableFuture<Integer> streamItems(Consumer<ContentItem> consumer) {
+            return slow(() -> 0);
+        }
+
+        @Override
+        public CompletableFuture<Integer> streamItemsByType(int type, Consumer<ContentItem> consumer) {
+            return slow(() -> {
+                reloads.incrementAndGet();
+                return 0;
+            });
+        }
+
+        @Override
+        public ItemAggregates getItemAggregates() {
+            return aggregates;
+        }
+
+        @Override
+        public int flushAggregateDeltas() {
+            return 0;
+        }
+
+        @Override
+        public int refreshItemAggregates() {
+            return 0;
+        }
+
+        @Override
+        public int reconcileItemAggregates() {
+            return 0;
+        }
+
+        @Override
+        public List<LeaderboardEntry> loadTopHolders(UUID itemUUID, int limit) {
+            return List.of();
+        }
+
+        @Override
+        public List<LeaderboardEntry> loadStoredLeaderboard(UUID itemUUID) {
+            return List.of();
+        }
+
+        @Override
+        public boolean saveLeaderboard(UUID itemUUID, List<LeaderboardEntry> entries) {
+            return true;
+        }
+
+        @Override
+        public boolean insertLedgerEntries(String serverName, List<ItemLedger.Entry> entries) {
+            return true;
+        }
+
+        @Override
+        public Connection getWriteConnection() throws SQLException {
+            throw new SQLException("No database in tests");
+        }
+
+        @Override
+        public int getWritePoolSize() {
+            return DATABASE_THREADS;
+        }
+
+        @Override
+        public void close() {
+            database.shutdownNow();
+        }
+    }
+}